@@ -0,0 +1,454 @@
+package com.malba.animation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Blends several GroupAnimators animating the same views. Each group created with a blender is a
+ * layer, which adds its weighted change to a property instead of overwriting the property. Every
+ * layer is played from the blender's single clock, and the sum of the layers is written once per
+ * property per frame, so overlapping groups blend smoothly rather than snapping between each other.
+ *
+ * A layer first animates a property from its blended value, so a layer with a weight of 1 moves the
+ * blend the full distance to its target, on top of whatever the other layers are doing.
+ *
+ * Colors can't be meaningfully summed, so the last layer to write a color wins.
+ */
+public class AnimationBlender {
+    // The clock driving every layer.
+    private final FrameClock mClock;
+
+    // Started layer clocks, driven from the blender's clock. Clocks are removed once cancelled.
+    private final ArrayList<LayerClock> mLayerClocks = new ArrayList<>();
+
+    // The accumulated value of each target animated by any layer, dropped once the blender is idle.
+    private final HashMap<AnimationTarget, Accumulator> mAccumulators = new HashMap<>();
+
+    // Incremented each time the accumulators are dropped, so layer targets know to fetch new ones.
+    private int mGeneration;
+
+    // Accumulators changed since they were last written.
+    private final ArrayList<Accumulator> mDirty = new ArrayList<>();
+
+    // Whether a frame is being delivered, in which case writes are held until the frame ends.
+    private boolean mInFrame;
+
+    public AnimationBlender() {
+        this(new AnimatorFrameClock());
+    }
+
+    /**
+     * @param clock The clock to drive every layer from.
+     */
+    AnimationBlender(FrameClock clock) {
+        mClock = clock;
+        mClock.setCallback(new FrameClock.Callback() {
+            @Override
+            public void onFrame(long deltaTime) {
+                deliverFrame(deltaTime);
+            }
+        });
+    }
+
+    /**
+     * @return A new clock for a layer, driven from the blender's clock.
+     */
+    FrameClock createClock() {
+        return new LayerClock();
+    }
+
+    /**
+     * @return The number of layer clocks currently driven by the blender.
+     */
+    int getLayerClockCount() {
+        return mLayerClocks.size();
+    }
+
+    /**
+     * @return The number of targets the blender is currently accumulating values for.
+     */
+    int getAccumulatorCount() {
+        return mAccumulators.size();
+    }
+
+    /**
+     * @param weight The weight the layer's changes are added with.
+     * @return A new layer of this blender.
+     */
+    Layer createLayer(float weight) {
+        return new Layer(this, weight);
+    }
+
+    /**
+     * Gets the accumulator for a target, creating it the first time the target is seen.
+     * @param target The target being animated.
+     * @return The accumulator for the target.
+     */
+    private Accumulator getAccumulator(AnimationTarget target) {
+        Accumulator accumulator = mAccumulators.get(target);
+        if(accumulator == null) {
+            accumulator = new Accumulator(this, target);
+            mAccumulators.put(target, accumulator);
+        }
+
+        return accumulator;
+    }
+
+    /**
+     * Delivers a frame to every started layer, then writes the accumulated values.
+     * @param deltaTime The time since the previous frame in milliseconds.
+     */
+    private void deliverFrame(long deltaTime) {
+        mInFrame = true;
+
+        for(int i=0; i < mLayerClocks.size(); i++) {
+            LayerClock clock = mLayerClocks.get(i);
+            if(clock.mStarted) {
+                clock.mCallback.onFrame(clock.mFirstFrame ? 0 : deltaTime);
+                clock.mFirstFrame = false;
+            }
+        }
+
+        mInFrame = false;
+
+        // Drop the clocks of layers which finished or were cancelled during the frame.
+        int count = 0;
+        for(int i=0; i < mLayerClocks.size(); i++) {
+            LayerClock clock = mLayerClocks.get(i);
+            if(clock.mStarted) {
+                mLayerClocks.set(count++, clock);
+            } else {
+                clock.mRegistered = false;
+            }
+        }
+
+        for(int i=mLayerClocks.size() - 1; i >= count; i--) {
+            mLayerClocks.remove(i);
+        }
+
+        flush();
+
+        // Once idle, drop the accumulators, so values are read from the targets again, in case
+        // they are changed elsewhere.
+        if(mLayerClocks.isEmpty()) {
+            mClock.cancel();
+
+            if(!mAccumulators.isEmpty()) {
+                mAccumulators.clear();
+                mGeneration++;
+            }
+        }
+    }
+
+    /**
+     * Removes a cancelled layer clock, unless a frame is being delivered, in which case it is
+     * removed once the frame ends. The blender's clock keeps running until the next frame, which
+     * finds the blender idle and releases it.
+     * @param clock The cancelled clock.
+     */
+    private void unregister(LayerClock clock) {
+        if(!mInFrame && clock.mRegistered) {
+            mLayerClocks.remove(clock);
+            clock.mRegistered = false;
+        }
+    }
+
+    /**
+     * Marks an accumulator as changed, writing it straight away unless a frame is being delivered.
+     * @param accumulator The changed accumulator.
+     */
+    private void markDirty(Accumulator accumulator) {
+        if(!accumulator.mQueued) {
+            accumulator.mQueued = true;
+            mDirty.add(accumulator);
+        }
+
+        if(!mInFrame) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every changed accumulator to its target.
+     */
+    private void flush() {
+        for(int i=0; i < mDirty.size(); i++) {
+            mDirty.get(i).flush();
+        }
+
+        mDirty.clear();
+    }
+
+    /**
+     * FrameClock handed to a layer. Frames are delivered by the blender, so every layer is
+     * stepped before the accumulated values are written.
+     */
+    private final class LayerClock implements FrameClock {
+        private Callback mCallback;
+        private boolean mStarted;
+        private boolean mFirstFrame;
+
+        // Whether the clock is in the blender's list of clocks.
+        private boolean mRegistered;
+
+        @Override
+        public void setCallback(Callback callback) {
+            mCallback = callback;
+        }
+
+        @Override
+        public void start() {
+            mStarted = true;
+            mFirstFrame = true;
+
+            if(!mRegistered) {
+                mRegistered = true;
+                mLayerClocks.add(this);
+            }
+
+            if(!mClock.isStarted()) {
+                mClock.start();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            mStarted = false;
+            unregister(this);
+        }
+
+        @Override
+        public boolean isStarted() {
+            return mStarted;
+        }
+    }
+
+    /**
+     * The value of every property of a single target, summed across all layers. Property
+     * constants are single bits, so they are tracked in bit masks and stored by bit index.
+     */
+    private static final class Accumulator {
+        final AnimationBlender mBlender;
+        final AnimationTarget mTarget;
+        final float[] mValues = new float[Integer.SIZE];
+        final int[] mColors = new int[Integer.SIZE];
+
+        // Properties which have been read from the target.
+        int mKnown;
+
+        // Properties which have changed since they were last written.
+        int mDirtyValues;
+        int mDirtyColors;
+
+        // Whether the accumulator is waiting to be written.
+        boolean mQueued;
+
+        /**
+         * @param blender The blender the accumulator belongs to.
+         * @param target The target being animated.
+         */
+        Accumulator(AnimationBlender blender, AnimationTarget target) {
+            mBlender = blender;
+            mTarget = target;
+        }
+
+        /**
+         * @param property The property being fetched.
+         * @return The accumulated value of the property.
+         */
+        float getValue(int property) {
+            final int slot = Integer.numberOfTrailingZeros(property);
+            if((mKnown & property) == 0) {
+                mValues[slot] = mTarget.getValue(property);
+                mKnown |= property;
+            }
+
+            return mValues[slot];
+        }
+
+        /**
+         * @param property The property being changed.
+         * @param delta The change to add to the property.
+         */
+        void add(int property, float delta) {
+            mValues[Integer.numberOfTrailingZeros(property)] = getValue(property) + delta;
+            mDirtyValues |= property;
+            mBlender.markDirty(this);
+        }
+
+        /**
+         * @param property The property being fetched.
+         * @return The current color of the property.
+         */
+        int getColor(int property) {
+            final int slot = Integer.numberOfTrailingZeros(property);
+            if((mKnown & property) == 0) {
+                mColors[slot] = mTarget.getColor(property);
+                mKnown |= property;
+            }
+
+            return mColors[slot];
+        }
+
+        /**
+         * @param property The property being set.
+         * @param color The color to set.
+         */
+        void setColor(int property, int color) {
+            mColors[Integer.numberOfTrailingZeros(property)] = color;
+            mKnown |= property;
+            mDirtyColors |= property;
+            mBlender.markDirty(this);
+        }
+
+        /**
+         * Writes each changed property to the target, once.
+         */
+        void flush() {
+            while(mDirtyValues != 0) {
+                final int property = Integer.lowestOneBit(mDirtyValues);
+                mDirtyValues &= ~property;
+                mTarget.setValue(property, mValues[Integer.numberOfTrailingZeros(property)]);
+            }
+
+            while(mDirtyColors != 0) {
+                final int property = Integer.lowestOneBit(mDirtyColors);
+                mDirtyColors &= ~property;
+                mTarget.setColor(property, mColors[Integer.numberOfTrailingZeros(property)]);
+            }
+
+            mQueued = false;
+        }
+    }
+
+    /**
+     * A single group's contribution to the blender.
+     */
+    static final class Layer {
+        final AnimationBlender mBlender;
+
+        // The weight this layer's changes are added with.
+        float mWeight;
+
+        // The targets of this layer, one for each target animated.
+        private final HashMap<AnimationTarget, LayerTarget> mTargets = new HashMap<>();
+
+        /**
+         * @param blender The blender the layer belongs to.
+         * @param weight The weight the layer's changes are added with.
+         */
+        Layer(AnimationBlender blender, float weight) {
+            mBlender = blender;
+            mWeight = weight;
+        }
+
+        /**
+         * Replaces each target of a timeline with the target to play it through this layer.
+         * Targets the timeline no longer animates are dropped.
+         * @param targets The targets of the timeline.
+         * @param count The number of targets in use.
+         */
+        void wrapTargets(AnimationTarget[] targets, int count) {
+            HashMap<AnimationTarget, LayerTarget> previous = new HashMap<>(mTargets);
+            mTargets.clear();
+
+            for(int i=0; i < count; i++) {
+                LayerTarget layerTarget = mTargets.get(targets[i]);
+                if(layerTarget == null) {
+                    layerTarget = previous.get(targets[i]);
+                    if(layerTarget == null) {
+                        layerTarget = new LayerTarget(this, targets[i]);
+                    }
+
+                    mTargets.put(targets[i], layerTarget);
+                }
+
+                targets[i] = layerTarget;
+            }
+        }
+
+        /**
+         * Forgets this layer's own values, so they are read from the blend when the layer next
+         * plays, in case the targets were changed elsewhere.
+         */
+        void reset() {
+            for(LayerTarget target : mTargets.values()) {
+                target.mKnown = 0;
+            }
+        }
+    }
+
+    /**
+     * Animation target which adds the changes a layer makes to the target's accumulator. The
+     * layer's own value of each property is kept, so the change can be found on each write.
+     */
+    static final class LayerTarget implements AnimationTarget {
+        final AnimationTarget mTarget;
+        private final Layer mLayer;
+        private final float[] mValues = new float[Integer.SIZE];
+
+        // The accumulator of the target, fetched again once the blender drops its accumulators.
+        // The layer's own values are kept, so a paused layer resumes from where it was.
+        private Accumulator mAccumulator;
+        private int mGeneration;
+
+        // Properties this layer has a value for. Until then the accumulated value is used.
+        private int mKnown;
+
+        /**
+         * @param layer The layer the target belongs to.
+         * @param target The target being animated.
+         */
+        LayerTarget(Layer layer, AnimationTarget target) {
+            mLayer = layer;
+            mTarget = target;
+        }
+
+        /**
+         * @return The accumulator of the target, for the blender's current generation.
+         */
+        private Accumulator getAccumulator() {
+            final AnimationBlender blender = mLayer.mBlender;
+            if(mAccumulator == null || mGeneration != blender.mGeneration) {
+                mAccumulator = blender.getAccumulator(mTarget);
+                mGeneration = blender.mGeneration;
+            }
+
+            return mAccumulator;
+        }
+
+        @Override
+        public float getValue(int property) {
+            final Accumulator accumulator = getAccumulator();
+            final int slot = Integer.numberOfTrailingZeros(property);
+            if((mKnown & property) == 0) {
+                mValues[slot] = accumulator.getValue(property);
+                mKnown |= property;
+            }
+
+            return mValues[slot];
+        }
+
+        @Override
+        public void setValue(int property, float value) {
+            final float previous = getValue(property);
+            mValues[Integer.numberOfTrailingZeros(property)] = value;
+            mAccumulator.add(property, (value - previous) * mLayer.mWeight);
+        }
+
+        @Override
+        public int getColor(int property) {
+            return getAccumulator().getColor(property);
+        }
+
+        @Override
+        public void setColor(int property, int color) {
+            getAccumulator().setColor(property, color);
+        }
+
+        @Override
+        public PlaybackPolicy getPlaybackPolicy() {
+            return mTarget.getPlaybackPolicy();
+        }
+    }
+}
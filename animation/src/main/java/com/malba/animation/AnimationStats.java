@@ -0,0 +1,292 @@
+package com.malba.animation;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A snapshot of what a GroupAnimator holds, including any nested groups, along with an estimate
+ * of the heap it retains. Views are referenced, not owned, so their own size is not included.
+ */
+public class AnimationStats {
+    // Approximate object sizes in bytes, for a runtime using 4 byte references.
+    // GroupAnimator, its collections, player and clock.
+    private static final int GROUP_BYTES                = 512;
+    // HashMap node, plus the TreeSet and TreeMap holding the view's values.
+    private static final int VIEW_ENTRY_BYTES           = 120;
+    // AnimationValue, plus its TreeMap entry.
+    private static final int SEGMENT_BYTES              = 72;
+    // One slot in each of a bulk animation's arrays, plus the view's target.
+    private static final int BULK_SEGMENT_BYTES         = 32;
+    // One keyframe time and value. Tracks shared between segments are counted once.
+    private static final int KEYFRAME_BYTES             = 8;
+    // One sampled path point. Tables shared between segments are counted once.
+    private static final int PATH_SAMPLE_BYTES          = 8;
+    // Cue, plus its list slot.
+    private static final int CUE_BYTES                  = 32;
+    // Timeline object and its array headers.
+    private static final int TIMELINE_BYTES             = 320;
+    // One slot in each of the timeline's packed segment arrays.
+    private static final int TIMELINE_SEGMENT_BYTES     = 67;
+    // One slot in each of the timeline's packed cue arrays.
+    private static final int TIMELINE_CUE_BYTES         = 8;
+    // One slot in the timeline's color and from color arrays.
+    private static final int TIMELINE_COLOR_SLOT_BYTES  = 8;
+    // One slot in the timeline's path table array.
+    private static final int TIMELINE_PATH_SLOT_BYTES   = 4;
+    // One slot in the timeline's keyframe track and cursor arrays.
+    private static final int TIMELINE_KEYFRAME_SLOT_BYTES = 8;
+    // The target, property, value and color a track started from, kept for a released timeline.
+    private static final int START_VALUE_BYTES          = 16;
+
+    int mGroupCount;
+    int mViewCount;
+    int mViewEntryCount;
+    int mSegmentCount;
+    int mBulkSegmentCount;
+    int mCueCount;
+    int mKeyframeCount;
+    int mPathSampleCount;
+    int mTimelineCount;
+    int mTimelineSegmentCount;
+    int mTimelineCueCount;
+    int mTimelineColorSlotCount;
+    int mTimelinePathSlotCount;
+    int mTimelineKeyframeSlotCount;
+    int mStartValueCount;
+    int mActiveAnimatorCount;
+    int mActiveSegmentCount;
+
+    // Shared objects already counted, so they are only counted once.
+    private final Set<Object> mCounted = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    AnimationStats() {
+    }
+
+    /**
+     * @param shared An object which may be shared between segments or groups.
+     * @return Whether the object is yet to be counted. It is counted from then on.
+     */
+    boolean countOnce(Object shared) {
+        return mCounted.add(shared);
+    }
+
+    /**
+     * Adds a flattened timeline to the snapshot.
+     * @param timeline The timeline held.
+     */
+    void addTimeline(Timeline timeline) {
+        mTimelineCount++;
+        mTimelineSegmentCount += timeline.mCount;
+        mTimelineCueCount += timeline.mCueCount;
+
+        // Arrays only allocated for timelines holding colors, paths or keyframes.
+        if(timeline.mColors != null) {
+            mTimelineColorSlotCount += timeline.mCount;
+        }
+
+        if(timeline.mPaths != null) {
+            mTimelinePathSlotCount += timeline.mCount;
+        }
+
+        if(timeline.mKeyframes != null) {
+            mTimelineKeyframeSlotCount += timeline.mCount;
+        }
+    }
+
+    /**
+     * @return The estimated size of a group, before anything is added to it.
+     */
+    static long estimateGroupBytes() {
+        return GROUP_BYTES;
+    }
+
+    /**
+     * @param segmentCount The number of segments.
+     * @param viewCount The number of views they add to the group.
+     * @return The estimated size of segments registered through the fluent methods.
+     */
+    static long estimateSegmentBytes(int segmentCount, int viewCount) {
+        return (long) segmentCount * SEGMENT_BYTES + (long) viewCount * VIEW_ENTRY_BYTES;
+    }
+
+    /**
+     * @param segmentCount The number of segments.
+     * @return The estimated size of segments registered in bulk.
+     */
+    static long estimateBulkBytes(int segmentCount) {
+        return (long) segmentCount * BULK_SEGMENT_BYTES;
+    }
+
+    /**
+     * @param keyframeCount The number of keyframes.
+     * @return The estimated size of a keyframe track.
+     */
+    static long estimateKeyframeBytes(int keyframeCount) {
+        return (long) keyframeCount * KEYFRAME_BYTES;
+    }
+
+    /**
+     * @param sampleCount The number of points sampled from the path.
+     * @return The estimated size of a path table.
+     */
+    static long estimatePathBytes(int sampleCount) {
+        return (long) sampleCount * PATH_SAMPLE_BYTES;
+    }
+
+    /**
+     * @param cueCount The number of cues.
+     * @return The estimated size of the cues.
+     */
+    static long estimateCueBytes(int cueCount) {
+        return (long) cueCount * CUE_BYTES;
+    }
+
+    /**
+     * @param timeline A flattened timeline.
+     * @return The estimated size of the timeline.
+     */
+    static long estimateTimelineBytes(Timeline timeline) {
+        long bytes = TIMELINE_BYTES + (long) timeline.mCount * TIMELINE_SEGMENT_BYTES
+                + (long) timeline.mCueCount * TIMELINE_CUE_BYTES;
+
+        if(timeline.mColors != null) {
+            bytes += (long) timeline.mCount * TIMELINE_COLOR_SLOT_BYTES;
+        }
+
+        if(timeline.mPaths != null) {
+            bytes += (long) timeline.mCount * TIMELINE_PATH_SLOT_BYTES;
+        }
+
+        if(timeline.mKeyframes != null) {
+            bytes += (long) timeline.mCount * TIMELINE_KEYFRAME_SLOT_BYTES;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @param trackCount The number of tracks.
+     * @return The estimated size of the start values kept for a released timeline.
+     */
+    static long estimateStartValueBytes(int trackCount) {
+        return (long) trackCount * START_VALUE_BYTES;
+    }
+
+    /**
+     * @return The number of groups, including the group itself and every nested group. A group
+     * nested more than once is counted once.
+     */
+    public int getGroupCount() {
+        return mGroupCount;
+    }
+
+    /**
+     * @return The number of views and sprites held, whether animated through the fluent methods
+     * or in bulk. A view animated by several nested groups counts once for each group.
+     */
+    public int getViewCount() {
+        return mViewCount;
+    }
+
+    /**
+     * @return The number of animation segments registered.
+     */
+    public int getSegmentCount() {
+        return mSegmentCount;
+    }
+
+    /**
+     * @return The number of animation segments registered in bulk, included in the segment count.
+     */
+    public int getBulkSegmentCount() {
+        return mBulkSegmentCount;
+    }
+
+    /**
+     * @return The number of keyframes held by keyframe tracks. Tracks shared between segments
+     * of a group are counted once.
+     */
+    public int getKeyframeCount() {
+        return mKeyframeCount;
+    }
+
+    /**
+     * @return The number of points sampled from the paths followed. Paths shared between
+     * segments of a group are counted once.
+     */
+    public int getPathSampleCount() {
+        return mPathSampleCount;
+    }
+
+    /**
+     * @return The number of cues registered.
+     */
+    public int getCueCount() {
+        return mCueCount;
+    }
+
+    /**
+     * @return The number of segments held by flattened timelines, built when groups are started.
+     */
+    public int getTimelineSegmentCount() {
+        return mTimelineSegmentCount;
+    }
+
+    /**
+     * @return The number of track start values kept for timelines released by compaction, so
+     * groups can resume from where they left off.
+     */
+    public int getStartValueCount() {
+        return mStartValueCount;
+    }
+
+    /**
+     * @return The number of running animators. A composition plays from a single clock, so each
+     * playing group counts once, however many views it animates.
+     */
+    public int getActiveAnimatorCount() {
+        return mActiveAnimatorCount;
+    }
+
+    /**
+     * @return The number of segments currently mid animation.
+     */
+    public int getActiveSegmentCount() {
+        return mActiveSegmentCount;
+    }
+
+    /**
+     * @return The approximate heap retained, in bytes.
+     */
+    public long getRetainedBytes() {
+        return (long) mGroupCount * GROUP_BYTES
+                + (long) mViewEntryCount * VIEW_ENTRY_BYTES
+                + (long) (mSegmentCount - mBulkSegmentCount) * SEGMENT_BYTES
+                + (long) mBulkSegmentCount * BULK_SEGMENT_BYTES
+                + (long) mKeyframeCount * KEYFRAME_BYTES
+                + (long) mPathSampleCount * PATH_SAMPLE_BYTES
+                + (long) mCueCount * CUE_BYTES
+                + (long) mTimelineCount * TIMELINE_BYTES
+                + (long) mTimelineSegmentCount * TIMELINE_SEGMENT_BYTES
+                + (long) mTimelineCueCount * TIMELINE_CUE_BYTES
+                + (long) mTimelineColorSlotCount * TIMELINE_COLOR_SLOT_BYTES
+                + (long) mTimelinePathSlotCount * TIMELINE_PATH_SLOT_BYTES
+                + (long) mTimelineKeyframeSlotCount * TIMELINE_KEYFRAME_SLOT_BYTES
+                + (long) mStartValueCount * START_VALUE_BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return "AnimationStats{groups=" + mGroupCount
+                + ", views=" + mViewCount
+                + ", segments=" + mSegmentCount
+                + ", keyframes=" + mKeyframeCount
+                + ", pathSamples=" + mPathSampleCount
+                + ", cues=" + mCueCount
+                + ", timelineSegments=" + mTimelineSegmentCount
+                + ", activeAnimators=" + mActiveAnimatorCount
+                + ", activeSegments=" + mActiveSegmentCount
+                + ", retainedBytes=" + getRetainedBytes() + "}";
+    }
+}
@@ -0,0 +1,41 @@
+package com.malba.animation;
+
+/**
+ * Something a Timeline can animate. Properties are identified by the GroupAnimator property
+ * constants.
+ */
+interface AnimationTarget {
+    /**
+     * Gets the value for a particular animatable property.
+     * @param property The property being fetched.
+     * @return The value of the property being fetched.
+     */
+    float getValue(int property);
+
+    /**
+     * Sets the value for a particular animatable property, without animating.
+     * @param property The property being set.
+     * @param value The value to set.
+     */
+    void setValue(int property, float value);
+
+    /**
+     * Gets the value for a particular animatable color property.
+     * @param property The property being fetched.
+     * @return The packed ARGB color of the property being fetched.
+     */
+    int getColor(int property);
+
+    /**
+     * Sets the value for a particular animatable color property, without animating.
+     * @param property The property being set.
+     * @param color The packed ARGB color to set.
+     */
+    void setColor(int property, int color);
+
+    /**
+     * @return The policy to play animations of the target with, or null if the target doesn't
+     * provide one.
+     */
+    PlaybackPolicy getPlaybackPolicy();
+}
@@ -0,0 +1,40 @@
+package com.malba.animation;
+
+import android.animation.TimeAnimator;
+
+/**
+ * FrameClock driven by a TimeAnimator, delivering a frame on every display frame.
+ */
+final class AnimatorFrameClock implements FrameClock, TimeAnimator.TimeListener {
+    private final TimeAnimator mAnimator = new TimeAnimator();
+    private Callback mCallback;
+
+    AnimatorFrameClock() {
+        mAnimator.setTimeListener(this);
+    }
+
+    @Override
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    public void start() {
+        mAnimator.start();
+    }
+
+    @Override
+    public void cancel() {
+        mAnimator.cancel();
+    }
+
+    @Override
+    public boolean isStarted() {
+        return mAnimator.isStarted();
+    }
+
+    @Override
+    public void onTimeUpdate(TimeAnimator animation, long totalTime, long deltaTime) {
+        mCallback.onFrame(deltaTime);
+    }
+}
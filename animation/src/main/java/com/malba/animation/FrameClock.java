@@ -0,0 +1,38 @@
+package com.malba.animation;
+
+/**
+ * Source of frames for playback. Playback is driven entirely by the time passed between frames,
+ * so a clock can be swapped for a virtual one to play a group without a display.
+ */
+interface FrameClock {
+    /**
+     * Receives frames from a FrameClock.
+     */
+    interface Callback {
+        /**
+         * Called once per frame while the clock is started.
+         * @param deltaTime The time since the previous frame in milliseconds, 0 for the first.
+         */
+        void onFrame(long deltaTime);
+    }
+
+    /**
+     * @param callback The callback to deliver frames to.
+     */
+    void setCallback(Callback callback);
+
+    /**
+     * Starts delivering frames.
+     */
+    void start();
+
+    /**
+     * Stops delivering frames.
+     */
+    void cancel();
+
+    /**
+     * @return Whether frames are being delivered.
+     */
+    boolean isStarted();
+}
@@ -1,12 +1,16 @@
 package com.malba.animation;
+import android.animation.TimeInterpolator;
+import android.graphics.Path;
 import android.support.annotation.NonNull;
 import android.view.View;
-import android.view.ViewPropertyAnimator;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -14,29 +18,44 @@ import java.util.TreeSet;
  * TBD
  */
 public class GroupAnimator {
-    // Static a animator definitions, so we can map the animations to Android animators.
-    private static final int TRANSLATION_X  = 0x0001;
-    private static final int TRANSLATION_Y  = 0x0002;
-    private static final int TRANSLATION_Z  = 0x0004;
-    private static final int SCALE_X        = 0x0008;
-    private static final int SCALE_Y        = 0x0010;
-    private static final int ROTATION       = 0x0020;
-    private static final int ROTATION_X     = 0x0040;
-    private static final int ROTATION_Y     = 0x0080;
-    private static final int X              = 0x0100;
-    private static final int Y              = 0x0200;
-    private static final int Z              = 0x0400;
-    private static final int ALPHA          = 0x0800;
+    // Property definitions, used to map animations to view properties, and with animate().
+    public static final int TRANSLATION_X  = 0x0001;
+    public static final int TRANSLATION_Y  = 0x0002;
+    public static final int TRANSLATION_Z  = 0x0004;
+    public static final int SCALE_X        = 0x0008;
+    public static final int SCALE_Y        = 0x0010;
+    public static final int ROTATION       = 0x0020;
+    public static final int ROTATION_X     = 0x0040;
+    public static final int ROTATION_Y     = 0x0080;
+    public static final int X              = 0x0100;
+    public static final int Y              = 0x0200;
+    public static final int Z              = 0x0400;
+    public static final int ALPHA          = 0x0800;
+    public static final int BACKGROUND_COLOR = 0x1000;
+
+    // Repeat definitions, used with withRepeat().
+    public static final int INFINITE        = -1;
+    public static final int REPEAT_RESTART  = 1;
+    public static final int REPEAT_REVERSE  = 2;
+
+    // Memory budget policies, used with withMemoryBudget().
+    public static final int BUDGET_FAIL     = 1;
+    public static final int BUDGET_COMPACT  = 2;
 
     // Hash map to keep track of the animation states of various views.
-    private HashMap<View, TreeSet<AnimationValue>> mAnimatorMap = new HashMap<>();
+    private HashMap<AnimationTarget, TreeSet<AnimationValue>> mAnimatorMap = new HashMap<>();
 
-    // List of active animators
-    // TODO: Clear when animation is finished.
-    private LinkedList<ViewPropertyAnimator> mActiveAnimators = new LinkedList<>();
+    // Plays the flattened timeline from a single clock.
+    private final TimelinePlayer mPlayer;
 
-    // The target view to run the next animation commands on.
-    private View mTarget;
+    // The policy used to scale and throttle playback, or null to use the default policy.
+    private PlaybackPolicy mPlaybackPolicy;
+
+    // The playback priority of this group.
+    private int mPriority = PlaybackPolicy.PRIORITY_DEFAULT;
+
+    // The target to run the next animation commands on.
+    private AnimationTarget mTarget;
 
     // The default duration to be used, unless a duration is specified
     private int mDefaultDuration = 500;
@@ -47,15 +66,84 @@ public class GroupAnimator {
     // The length of the animation that will play.
     private int mAnimationLength = 0;
 
-    // The time when the animation was started at.
-    private long mPlaybackStartTime;
+    // The number of animation values registered across all views.
+    private int mSegmentCount = 0;
+
+    // Animations registered in bulk, kept in their packed form.
+    private ArrayList<BulkAnimation> mBulkAnimations = new ArrayList<>();
+
+    // The number of segments held by the bulk animations.
+    private int mBulkSegmentCount = 0;
+
+    // The keyframe track registered last, shared by following tracks with the same keyframes.
+    private KeyframeTrack mLastKeyframes;
+
+    // Keyframe tracks and path tables held by this group's segments, or null if there are none.
+    private Set<Object> mSharedData;
+
+    // The keyframes and path samples held, counting shared tracks and tables once.
+    private int mKeyframeCount = 0;
+    private int mPathSampleCount = 0;
+
+    // The view targets registered in bulk last, shared by following calls with the same views.
+    private AnimationTarget[] mLastViewTargets;
+
+    // Nested groups, flattened into this group's timeline.
+    private ArrayList<ChildGroup> mChildren = new ArrayList<>();
+
+    // Cue points, flattened into this group's timeline.
+    private ArrayList<Cue> mCues = new ArrayList<>();
+
+    // Incremented whenever the animation set of this group changes.
+    private int mVersion = 0;
+
+    // Flattened timeline, built lazily on start and rebuilt whenever the animation changes.
+    private Timeline mTimeline;
+
+    // The version of this group and its children the timeline was built from.
+    private int mTimelineVersion;
+
+    // The blender layer this group adds its changes to, or null to write to its targets directly.
+    private AnimationBlender.Layer mLayer;
+
+    // The maximum heap this group may retain, or 0 for no limit.
+    private long mMemoryBudget = 0;
+
+    // What to do when the memory budget is exceeded.
+    private int mBudgetPolicy = BUDGET_FAIL;
+
+    public GroupAnimator() {
+        this(new AnimatorFrameClock());
+    }
+
+    /**
+     * @param clock The clock to drive playback from.
+     */
+    GroupAnimator(FrameClock clock) {
+        mPlayer = new TimelinePlayer(clock);
+    }
+
+    /**
+     * Creates a group which is blended with the other groups of a blender. Rather than overwriting
+     * the properties it animates, the group adds its change in each property to the changes made
+     * by the other groups, and is played from the blender's clock.
+     * @param blender The blender to add the group to.
+     */
+    public GroupAnimator(AnimationBlender blender) {
+        this(blender.createClock());
+        mLayer = blender.createLayer(1);
+    }
 
     /**
      * @return The estimated animation percent, after calling start().
      */
     public float getAnimationPercent() {
-        final long elapsedTime = System.currentTimeMillis() - mPlaybackStartTime;
-        final float percent = elapsedTime / (float) mAnimationLength;
+        // Until started, report the animation as complete.
+        if(!mPlayer.hasStarted()) {
+            return 1;
+        }
+
+        final float percent = mPlayer.getClockTime() / getAnimationLength();
 
         if(percent > 1) {
             return 1;
@@ -68,6 +156,19 @@ public class GroupAnimator {
         return percent;
     }
 
+    /**
+     * @return The length of the animation, including any nested groups.
+     */
+    public int getAnimationLength() {
+        int length = mAnimationLength;
+
+        for(ChildGroup child : mChildren) {
+            length = Math.max(length, child.mOffset + child.mGroup.getAnimationLength());
+        }
+
+        return length;
+    }
+
     @Override
     protected Object clone() throws CloneNotSupportedException {
         super.clone();
@@ -84,6 +185,18 @@ public class GroupAnimator {
         final int mStartDelay;
         final float mValue;
 
+        // How the value is produced, one of the Timeline kinds.
+        final byte mKind;
+
+        // The path followed, for path animations.
+        final PathTable mPath;
+
+        // The color animated to, for color animations.
+        final int mColor;
+
+        // The keyframes played, for keyframe animations.
+        final KeyframeTrack mKeyframes;
+
         /**
          * @param property The property being animated.
          * @param value The value being animated to.
@@ -91,8 +204,27 @@ public class GroupAnimator {
          * @param startDelay The start delay of the animation.--
          */
         public AnimationValue(int property, float value, int duration, int startDelay) {
+            this(property, Timeline.KIND_VALUE, value, null, 0, null, duration, startDelay);
+        }
+
+        /**
+         * @param property The property being animated.
+         * @param kind How the value is produced, one of the Timeline kinds.
+         * @param value The value being animated to.
+         * @param path The path followed, for path animations.
+         * @param color The color animated to, for color animations.
+         * @param keyframes The keyframes played, for keyframe animations.
+         * @param duration The duration the animation will last.
+         * @param startDelay The start delay of the animation.
+         */
+        AnimationValue(int property, byte kind, float value, PathTable path, int color,
+                       KeyframeTrack keyframes, int duration, int startDelay) {
             mProperty = property;
+            mKind = kind;
             mValue = value;
+            mPath = path;
+            mColor = color;
+            mKeyframes = keyframes;
             mDuration = duration;
             mStartDelay = startDelay;
         }
@@ -123,15 +255,145 @@ public class GroupAnimator {
         }
     }
 
+    /**
+     * Internal class to keep track of one property animated across many targets, registered in
+     * bulk. Values are kept in packed arrays, and copied straight into the timeline.
+     */
+    private static class BulkAnimation {
+        final AnimationTarget[] mTargets;
+        final int mProperty;
+        final float[] mValues;
+        final int[] mDurations;
+        final int[] mStartDelays;
+
+        /**
+         * @param targets The targets being animated.
+         * @param property The property being animated.
+         * @param values The values being animated to, one per target.
+         * @param durations The durations the animations will last, one per target.
+         * @param startDelays The start delays of the animations, one per target.
+         */
+        BulkAnimation(AnimationTarget[] targets, int property, float[] values, int[] durations,
+                      int[] startDelays) {
+            mTargets = targets;
+            mProperty = property;
+            mValues = values;
+            mDurations = durations;
+            mStartDelays = startDelays;
+        }
+    }
+
+    /**
+     * Internal class to keep track of a nested group, and where it is placed in this group.
+     */
+    private static class ChildGroup {
+        final GroupAnimator mGroup;
+        final int mOffset;
+
+        /**
+         * @param group The nested group.
+         * @param offset The time the nested group starts at, within this group.
+         */
+        ChildGroup(GroupAnimator group, int offset) {
+            mGroup = group;
+            mOffset = offset;
+        }
+    }
+
+    /**
+     * Internal class to keep track of a cue point, placed either at a time or a percent.
+     */
+    private static class Cue {
+        final int mTime;
+        final float mPercent;
+        final Runnable mAction;
+
+        /**
+         * @param time The time of the cue, or -1 if placed at a percent.
+         * @param percent The percent of the cue, if not placed at a time.
+         * @param action The action to run when the cue is reached.
+         */
+        Cue(int time, float percent, Runnable action) {
+            mTime = time;
+            mPercent = percent;
+            mAction = action;
+        }
+    }
+
     /**
      * Registers a property for animation
-     * @param v The view being animated.
+     * @param v The target being animated.
      * @param property The property being animated.
      * @param value The amount the property being animated to.
      * @param duration The duration being animated for.
      * @param startDelay The start delay before the animation starts.
      */
-    private void animateProperty(View v, int property, float value, int duration, int startDelay) {
+    private void animateProperty(AnimationTarget v, int property, float value, int duration, int startDelay) {
+        checkSegmentBudget(v, 1, 0);
+        addAnimationValue(v, new AnimationValue(property, value, duration, startDelay));
+    }
+
+    /**
+     * Registers a path for a target's translation to follow.
+     * @param v The target being animated.
+     * @param path The path being followed.
+     * @param duration The duration being animated for.
+     * @param startDelay The start delay before the animation starts.
+     */
+    private void animatePath(AnimationTarget v, Path path, int duration, int startDelay) {
+        PathTable table = PathTable.forPath(path);
+        checkSegmentBudget(v, 2, isHeld(table) ? 0
+                : AnimationStats.estimatePathBytes(table.getSampleCount()));
+
+        addAnimationValue(v, new AnimationValue(TRANSLATION_X, Timeline.KIND_PATH_X, table.getX(1),
+                table, 0, null, duration, startDelay));
+        addAnimationValue(v, new AnimationValue(TRANSLATION_Y, Timeline.KIND_PATH_Y, table.getY(1),
+                table, 0, null, duration, startDelay));
+    }
+
+    /**
+     * Registers a color property for animation.
+     * @param v The target being animated.
+     * @param property The property being animated.
+     * @param color The packed ARGB color being animated to.
+     * @param duration The duration being animated for.
+     * @param startDelay The start delay before the animation starts.
+     */
+    private void animateColor(AnimationTarget v, int property, int color, int duration, int startDelay) {
+        checkSegmentBudget(v, 1, 0);
+        addAnimationValue(v, new AnimationValue(property, Timeline.KIND_COLOR, 0, null, color,
+                null, duration, startDelay));
+    }
+
+    /**
+     * Registers a keyframe track for animation.
+     * @param v The target being animated.
+     * @param property The property being animated.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @param startDelay The start delay before the track starts.
+     */
+    private void animateKeyframes(AnimationTarget v, int property, float[] times, float[] values, int startDelay) {
+        // The same keyframes are often applied to many targets in turn, so share a single copy.
+        KeyframeTrack keyframes = mLastKeyframes;
+        if(keyframes == null || !keyframes.matches(times, values)) {
+            keyframes = new KeyframeTrack(times.clone(), values.clone());
+        }
+
+        checkSegmentBudget(v, 1, isHeld(keyframes) ? 0
+                : AnimationStats.estimateKeyframeBytes(keyframes.getKeyframeCount()));
+
+        addAnimationValue(v, new AnimationValue(property, Timeline.KIND_KEYFRAMES,
+                keyframes.getEndValue(), null, 0, keyframes, keyframes.getDuration(), startDelay));
+        mLastKeyframes = keyframes;
+    }
+
+    /**
+     * Adds an animation value to a target's animation set.
+     * @param v The target being animated.
+     * @param animationValue The animation value to add.
+     */
+    private void addAnimationValue(AnimationTarget v, AnimationValue animationValue) {
         TreeSet<AnimationValue> set = mAnimatorMap.get(v);
 
         if(set == null) {
@@ -139,14 +401,263 @@ public class GroupAnimator {
             mAnimatorMap.put(v, set);
         }
 
-        System.out.println("Adding property");
-        AnimationValue animationValue = new AnimationValue(property, value, duration, startDelay);
-
         if(animationValue.getTotalDuration() > mAnimationLength) {
             mAnimationLength = animationValue.getTotalDuration();
         }
 
-        set.add(animationValue);
+        if(set.add(animationValue)) {
+            mSegmentCount++;
+            holdSharedData(animationValue);
+        }
+
+        mVersion++;
+    }
+
+    /**
+     * Adds the keyframe track or path table of a segment to the running totals, unless another
+     * segment of this group already holds it.
+     * @param value The animation value being held.
+     */
+    private void holdSharedData(AnimationValue value) {
+        if(value.mKeyframes == null && value.mPath == null) {
+            return;
+        }
+
+        if(mSharedData == null) {
+            mSharedData = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        }
+
+        if(value.mKeyframes != null && mSharedData.add(value.mKeyframes)) {
+            mKeyframeCount += value.mKeyframes.getKeyframeCount();
+        }
+
+        if(value.mPath != null && mSharedData.add(value.mPath)) {
+            mPathSampleCount += value.mPath.getSampleCount();
+        }
+    }
+
+    /**
+     * @param shared A keyframe track or path table.
+     * @return Whether a segment of this group already holds it.
+     */
+    private boolean isHeld(Object shared) {
+        return mSharedData != null && mSharedData.contains(shared);
+    }
+
+    /**
+     * Checks that adding segments for a target keeps the group within its memory budget, before
+     * anything is added.
+     * @param v The target being animated.
+     * @param segmentCount The number of segments to be added.
+     * @param sharedBytes The size of any shared data the segments add, such as keyframes.
+     * @throws IllegalStateException If the segments would exceed the memory budget.
+     */
+    private void checkSegmentBudget(AnimationTarget v, int segmentCount, long sharedBytes) {
+        final int viewCount = mAnimatorMap.containsKey(v) ? 0 : 1;
+        checkMemoryBudget(AnimationStats.estimateSegmentBytes(segmentCount, viewCount) + sharedBytes);
+    }
+
+    /**
+     * Registers a property for animation across many targets at once.
+     * @param targets The targets being animated.
+     * @param property The property being animated.
+     * @param values The values being animated to, one per target.
+     * @param delays The start delays, one per target, or null to use the default delay.
+     * @param durations The durations, one per target, or null to use the default duration.
+     */
+    private void animateBulk(AnimationTarget[] targets, int property, float[] values, int[] delays,
+                             int[] durations) {
+        if(property == 0 || property > ALPHA || Integer.bitCount(property) != 1) {
+            throw new IllegalArgumentException("Not a float property: " + property);
+        }
+
+        final int count = targets.length;
+        if(values.length != count || (delays != null && delays.length != count)
+                || (durations != null && durations.length != count)) {
+            throw new IllegalArgumentException("Expected " + count + " values, delays and durations");
+        }
+
+        checkMemoryBudget(AnimationStats.estimateBulkBytes(count));
+
+        // Copy the arrays, so the caller is free to reuse them.
+        int[] startDelays = new int[count];
+        int[] segmentDurations = new int[count];
+        for(int i=0; i < count; i++) {
+            startDelays[i] = delays != null ? delays[i] : mDefaultDelay;
+            segmentDurations[i] = durations != null ? durations[i] : mDefaultDuration;
+            mAnimationLength = Math.max(mAnimationLength, startDelays[i] + segmentDurations[i]);
+        }
+
+        mBulkAnimations.add(new BulkAnimation(targets, property, values.clone(), segmentDurations,
+                startDelays));
+        mBulkSegmentCount += count;
+
+        mVersion++;
+    }
+
+    /**
+     * @return The version of this group, including any nested groups. Changes whenever the
+     * animation set of this group or any nested group changes.
+     */
+    private int getVersion() {
+        int version = mVersion;
+
+        for(ChildGroup child : mChildren) {
+            version += child.mGroup.getVersion();
+        }
+
+        return version;
+    }
+
+    /**
+     * @return The number of animation values registered, including any nested groups.
+     */
+    private int getSegmentCount() {
+        int count = mSegmentCount + mBulkSegmentCount;
+
+        for(ChildGroup child : mChildren) {
+            count += child.mGroup.getSegmentCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The number of cues registered, including any nested groups.
+     */
+    private int getCueCount() {
+        int count = mCues.size();
+
+        for(ChildGroup child : mChildren) {
+            count += child.mGroup.getCueCount();
+        }
+
+        return count;
+    }
+
+    /**
+     * @param group The group to look for.
+     * @return Whether the group is this group, or nested anywhere within it.
+     */
+    private boolean contains(GroupAnimator group) {
+        if(group == this) {
+            return true;
+        }
+
+        for(ChildGroup child : mChildren) {
+            if(child.mGroup.contains(group)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Flattens the registered animations, and those of any nested groups, into a single
+     * Timeline, if an up to date one hasn't been built already.
+     * @return The Timeline for the current animation set.
+     */
+    private Timeline prepareTimeline() {
+        final int version = getVersion();
+
+        if(mTimeline == null || mTimelineVersion != version) {
+            Timeline timeline = new Timeline(getSegmentCount(), getCueCount());
+            collectSegments(timeline, 0, 0);
+            collectCues(timeline, 0, 0);
+
+            // Blended groups play through their layer, including the segments of nested groups.
+            if(mLayer != null) {
+                mLayer.wrapTargets(timeline.mTargets, timeline.mCount);
+            }
+
+            timeline.buildIndex();
+
+            // The new timeline replaces the previous one, which is kept if it doesn't fit.
+            final Timeline previous = mTimeline;
+            mTimeline = null;
+            try {
+                checkMemoryBudget(AnimationStats.estimateTimelineBytes(timeline));
+            } catch (IllegalStateException e) {
+                mTimeline = previous;
+                throw e;
+            }
+
+            mTimeline = timeline;
+            mTimelineVersion = version;
+        }
+
+        return mTimeline;
+    }
+
+    /**
+     * Writes the segments of this group, followed by those of any nested groups, into a timeline.
+     * @param timeline The timeline to write to.
+     * @param index The segment index to start writing at.
+     * @param offset The time this group starts at, within the timeline.
+     * @return The segment index after the last segment written.
+     */
+    private int collectSegments(Timeline timeline, int index, int offset) {
+        for(AnimationTarget v : mAnimatorMap.keySet()) {
+            for(AnimationValue value : mAnimatorMap.get(v)) {
+                final int startDelay = offset + value.mStartDelay;
+                switch (value.mKind) {
+                    case Timeline.KIND_PATH_X:
+                    case Timeline.KIND_PATH_Y:
+                        timeline.setPathSegment(index++, v, value.mProperty, value.mKind,
+                                value.mPath, value.mDuration, startDelay);
+                        break;
+                    case Timeline.KIND_COLOR:
+                        timeline.setColorSegment(index++, v, value.mProperty, value.mColor,
+                                value.mDuration, startDelay);
+                        break;
+                    case Timeline.KIND_KEYFRAMES:
+                        timeline.setKeyframeSegment(index++, v, value.mProperty, value.mKeyframes,
+                                startDelay);
+                        break;
+                    default:
+                        timeline.setSegment(index++, v, value.mProperty, value.mValue,
+                                value.mDuration, startDelay);
+                        break;
+                }
+            }
+        }
+
+        for(BulkAnimation bulk : mBulkAnimations) {
+            for(int i=0; i < bulk.mTargets.length; i++) {
+                timeline.setSegment(index++, bulk.mTargets[i], bulk.mProperty, bulk.mValues[i],
+                        bulk.mDurations[i], offset + bulk.mStartDelays[i]);
+            }
+        }
+
+        for(ChildGroup child : mChildren) {
+            index = child.mGroup.collectSegments(timeline, index, offset + child.mOffset);
+        }
+
+        return index;
+    }
+
+    /**
+     * Writes the cues of this group, followed by those of any nested groups, into a timeline.
+     * Cues placed at a percent are resolved against the length of this group.
+     * @param timeline The timeline to write to.
+     * @param index The cue index to start writing at.
+     * @param offset The time this group starts at, within the timeline.
+     * @return The cue index after the last cue written.
+     */
+    private int collectCues(Timeline timeline, int index, int offset) {
+        final int length = getAnimationLength();
+
+        for(Cue cue : mCues) {
+            final float time = cue.mTime >= 0 ? cue.mTime : cue.mPercent * length;
+            timeline.setCue(index++, offset + time, cue.mAction);
+        }
+
+        for(ChildGroup child : mChildren) {
+            index = child.mGroup.collectCues(timeline, index, offset + child.mOffset);
+        }
+
+        return index;
     }
 
     /**
@@ -164,241 +675,610 @@ public class GroupAnimator {
     }
 
     /**
-     * Starts the provided animations, given a view.
-     * @param view The view to animate on.
-     * @param animations The animations defined upon the view.
-     * @param startTime The start time to start at.
-     * @return A ViewPropertyanimator, if any animations were started.
+     * Starts the animation sequence.
+     * @param startPercent The animation percent to start at.
+     */
+    public void start(float startPercent) {
+        if(getSegmentCount() == 0 && getCueCount() == 0) {
+            return;
+        }
+
+        Timeline timeline = prepareTimeline();
+        PlaybackPolicy policy = getPlaybackPolicy(timeline);
+
+        // A blended group starts from the current blend, which may have been changed elsewhere.
+        if(mLayer != null) {
+            mLayer.reset();
+        }
+
+        final int length = getAnimationLength();
+        mPlayer.start(timeline, length, startPercent * length, policy, mPriority);
+    }
+
+    /**
+     * @param timeline The timeline being played.
+     * @return The policy to play the timeline with.
+     */
+    private PlaybackPolicy getPlaybackPolicy(Timeline timeline) {
+        if(mPlaybackPolicy != null) {
+            return mPlaybackPolicy;
+        }
+
+        // The default policy needs a context, which any animated view or drawn sprite can provide.
+        for(AnimationTarget target : timeline.mTargets) {
+            PlaybackPolicy policy = target.getPlaybackPolicy();
+            if(policy != null) {
+                return policy;
+            }
+        }
+
+        return PlaybackPolicy.UNMANAGED;
+    }
+
+    /**
+     * Starts the animation sequence.
+     */
+    public void start() {
+        start(0);
+    }
+
+    /**
+     * Uses the currently defined animation set, to generate a new instance of GroupAnimator,
+     * which will have the animation reversed. The reverse values are captured based on the current
+     * view states.
+     * @return A cloned and reversed version of this GroupAnimator.
+     */
+    public GroupAnimator cloneReverse() {
+        return cloneReverse(null);
+    }
+
+    /**
+     * @param clock The clock to play the reversed group from, or null to use the display. Blended
+     *              groups are always played from their blender.
+     * @return A cloned and reversed version of this GroupAnimator.
+     */
+    GroupAnimator cloneReverse(FrameClock clock) {
+        GroupAnimator reverseAnimator;
+        if(mLayer != null) {
+            reverseAnimator = new GroupAnimator(mLayer.mBlender).withWeight(mLayer.mWeight);
+        } else {
+            reverseAnimator = new GroupAnimator(clock != null ? clock : new AnimatorFrameClock());
+        }
+        final int length = getAnimationLength();
+        reverseAnimator.mAnimationLength = length;
+
+        Set<AnimationTarget> targets = mAnimatorMap.keySet();
+        for(AnimationTarget v : targets) {
+            TreeSet<AnimationValue> animations = mAnimatorMap.get(v);
+            TreeSet<AnimationValue> reverseAnimations = getReverseAnimationSet(v, animations, length);
+            if(reverseAnimations != null) {
+                reverseAnimator.mAnimatorMap.put(v, reverseAnimations);
+                reverseAnimator.mSegmentCount += reverseAnimations.size();
+                for(AnimationValue reverse : reverseAnimations) {
+                    reverseAnimator.holdSharedData(reverse);
+                }
+            }
+        }
+
+        for(BulkAnimation bulk : mBulkAnimations) {
+            reverseAnimator.mBulkAnimations.add(getReverseBulkAnimation(bulk, length));
+            reverseAnimator.mBulkSegmentCount += bulk.mTargets.length;
+        }
+
+        // Nested groups are reversed in place, and mirrored to the other end of the timeline.
+        for(ChildGroup child : mChildren) {
+            final int childEnd = child.mOffset + child.mGroup.getAnimationLength();
+            reverseAnimator.mChildren.add(new ChildGroup(child.mGroup.cloneReverse(clock), length - childEnd));
+        }
+
+        return reverseAnimator;
+    }
+
+    /**
+     * Returns a set of animators, which will play in the reverse direction. This method takes
+     * durations and start delays into account.
+     * @param target The target to pull the current property states from.
+     * @param animations The animation set to reverse.
+     * @param totalAnimationTime The length of the animation being reversed.
+     * @return The reverse animation set.
+     */
+    private TreeSet<AnimationValue> getReverseAnimationSet(AnimationTarget target, TreeSet<AnimationValue> animations, int totalAnimationTime) {
+        if(animations != null && !animations.isEmpty()) {
+            TreeSet<AnimationValue> reverseAnimations = createAnimationStateSet();
+            Iterator<AnimationValue> iter = animations.descendingIterator();
+
+            while (iter.hasNext()) {
+                AnimationValue value = iter.next();
+                final PathTable path = value.mPath == null ? null : value.mPath.reversed();
+                final KeyframeTrack keyframes = value.mKeyframes == null ? null : value.mKeyframes.reversed();
+                AnimationValue reverse = new AnimationValue(
+                        value.mProperty,
+                        value.mKind,
+                        target.getValue(value.mProperty),
+                        path,
+                        value.mKind == Timeline.KIND_COLOR ? target.getColor(value.mProperty) : 0,
+                        keyframes,
+                        value.mDuration,
+                        totalAnimationTime - value.getTotalDuration()
+                );
+
+                reverseAnimations.add(reverse);
+            }
+
+            return reverseAnimations;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns a bulk animation which will play in the reverse direction, back to the current
+     * values of its targets.
+     * @param bulk The bulk animation to reverse.
+     * @param totalAnimationTime The length of the animation being reversed.
+     * @return The reverse bulk animation.
+     */
+    private BulkAnimation getReverseBulkAnimation(BulkAnimation bulk, int totalAnimationTime) {
+        final int count = bulk.mTargets.length;
+        float[] values = new float[count];
+        int[] startDelays = new int[count];
+
+        for(int i=0; i < count; i++) {
+            values[i] = bulk.mTargets[i].getValue(bulk.mProperty);
+            startDelays[i] = totalAnimationTime - bulk.mStartDelays[i] - bulk.mDurations[i];
+        }
+
+        return new BulkAnimation(bulk.mTargets, bulk.mProperty, values, bulk.mDurations, startDelays);
+    }
+
+    /**
+     * Cancels the currently playing animation sequence.
+     */
+    public void cancel() {
+        mPlayer.cancel();
+    }
+
+    /**
+     * Pauses the currently playing animation sequence, leaving every view at its current value.
+     */
+    public void pause() {
+        mPlayer.pause();
+    }
+
+    /**
+     * Resumes the animation sequence from its current position, in the direction of the playback
+     * rate. Finished sequences continue playing if the playback rate has since been reversed, and
+     * sequences which have not been started yet are started.
+     */
+    public void resume() {
+        if(!mPlayer.hasStarted()) {
+            start(mPlayer.getPlaybackRate() < 0 ? 1 : 0);
+            return;
+        }
+
+        // The timeline may have been released by compaction, so rebuild it at the same point, with
+        // each track animating from the value it started from before.
+        if(mTimeline == null) {
+            mPlayer.restore(prepareTimeline(), getAnimationLength());
+        }
+
+        PlaybackPolicy policy = getPlaybackPolicy(mTimeline);
+        mPlayer.resume(policy, mPriority);
+    }
+
+    /**
+     * @return Whether the animation sequence is currently playing.
+     */
+    public boolean isRunning() {
+        return mPlayer.isRunning();
+    }
+
+    /**
+     * @return Whether the animation sequence has been paused.
+     */
+    public boolean isPaused() {
+        return mPlayer.isPaused();
+    }
+
+    /**
+     * Sets the playback rate, which takes effect immediately. Negative rates play the animation
+     * sequence backwards, from its current position.
+     * @param rate Multiplier applied to the animation clock.
+     */
+    public void setPlaybackRate(float rate) {
+        mPlayer.setPlaybackRate(rate);
+    }
+
+    /**
+     * @return Multiplier applied to the animation clock.
+     */
+    public float getPlaybackRate() {
+        return mPlayer.getPlaybackRate();
+    }
+
+    /**
+     * Sets how the animation sequence repeats.
+     * @param repeatCount The number of times to repeat after the first play, or INFINITE.
+     * @param repeatMode REPEAT_RESTART to play from the start each time, or REPEAT_REVERSE to
+     *                   play back and forth.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withRepeat(int repeatCount, int repeatMode) {
+        if(repeatCount < INFINITE) {
+            throw new IllegalArgumentException("Invalid repeat count: " + repeatCount);
+        }
+
+        mPlayer.setRepeat(repeatCount, repeatMode);
+        return this;
+    }
+
+    /**
+     * Sets the number of times the animation sequence restarts after the first play.
+     * @param repeatCount The number of times to repeat after the first play, or INFINITE.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withRepeat(int repeatCount) {
+        withRepeat(repeatCount, REPEAT_RESTART);
+        return this;
+    }
+
+    /**
+     * Nests a group within this group, starting at the given offset. The nested group is flattened
+     * into this group's timeline when started, so the whole composition plays from one clock.
+     * Changes made to the nested group are picked up the next time this group is started. The same
+     * group may be nested more than once, playing again at each offset.
+     * @param group The group to nest.
+     * @param offset The time the nested group starts at, within this group.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withGroup(GroupAnimator group, int offset) {
+        if(offset < 0) {
+            throw new IllegalArgumentException("Group offset cannot be negative: " + offset);
+        }
+
+        if(group.contains(this)) {
+            throw new IllegalArgumentException("A group cannot be nested within itself.");
+        }
+
+        // A group nested again shares what it holds with its first placement.
+        checkMemoryBudget(contains(group) ? 0 : group.estimateRetainedBytes());
+        mChildren.add(new ChildGroup(group, offset));
+        mVersion++;
+        return this;
+    }
+
+    /**
+     * Nests a group within this group, playing in parallel from the start of this group.
+     * @param group The group to nest.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withGroup(GroupAnimator group) {
+        withGroup(group, 0);
+        return this;
+    }
+
+    /**
+     * Nests a group within this group, playing after everything currently in this group has
+     * finished, plus a delay.
+     * @param group The group to nest.
+     * @param delay The amount of time to delay after the current end of this group.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withGroupAfter(GroupAnimator group, int delay) {
+        withGroup(group, getAnimationLength() + delay);
+        return this;
+    }
+
+    /**
+     * Nests a group within this group, playing after everything currently in this group has
+     * finished.
+     * @param group The group to nest.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withGroupAfter(GroupAnimator group) {
+        withGroupAfter(group, 0);
+        return this;
+    }
+
+    /**
+     * Adds a cue, which runs an action when playback reaches the given time. Cues are run from
+     * the animation clock in the order they are passed, in either direction, and are skipped when
+     * playback jumps over them by starting part way through. A cue after the last animation
+     * extends the group, so it is still reached.
+     * @param timeMs The time of the cue, in milliseconds.
+     * @param action The action to run when the cue is reached.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator addCue(int timeMs, Runnable action) {
+        if(timeMs < 0) {
+            throw new IllegalArgumentException("Cue time cannot be negative: " + timeMs);
+        }
+
+        checkMemoryBudget(AnimationStats.estimateCueBytes(1));
+        mCues.add(new Cue(timeMs, 0, action));
+        mAnimationLength = Math.max(mAnimationLength, timeMs);
+        mVersion++;
+        return this;
+    }
+
+    /**
+     * Adds a cue, which runs an action when playback reaches the given percent of this group.
+     * @param percent The percent of the cue, between 0 and 1.
+     * @param action The action to run when the cue is reached.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator addCue(float percent, Runnable action) {
+        if(percent < 0 || percent > 1) {
+            throw new IllegalArgumentException("Cue percent must be between 0 and 1: " + percent);
+        }
+
+        checkMemoryBudget(AnimationStats.estimateCueBytes(1));
+        mCues.add(new Cue(-1, percent, action));
+        mVersion++;
+        return this;
+    }
+
+    /**
+     * @return A snapshot of what this group holds, including any nested groups. Built by walking
+     * every group, so intended for diagnostics rather than being called as the group grows.
+     */
+    public AnimationStats getStats() {
+        AnimationStats stats = new AnimationStats();
+        collectStats(stats);
+        return stats;
+    }
+
+    /**
+     * @return The approximate heap retained by this group, including any nested groups, in bytes.
+     * Matches the stats snapshot, but is worked out from totals kept as each group grows.
+     */
+    public long estimateRetainedBytes() {
+        if(mChildren.isEmpty()) {
+            return getOwnRetainedBytes();
+        }
+
+        // A group nested more than once is only counted once.
+        Set<GroupAnimator> groups = Collections.newSetFromMap(new IdentityHashMap<GroupAnimator, Boolean>());
+        collectGroups(groups);
+
+        long bytes = 0;
+        for(GroupAnimator group : groups) {
+            bytes += group.getOwnRetainedBytes();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return The approximate heap retained by this group alone, excluding nested groups. Worked
+     * out from running totals, so budget checks don't need to walk the group.
+     */
+    private long getOwnRetainedBytes() {
+        long bytes = AnimationStats.estimateGroupBytes()
+                + AnimationStats.estimateSegmentBytes(mSegmentCount, mAnimatorMap.size())
+                + AnimationStats.estimateBulkBytes(mBulkSegmentCount)
+                + AnimationStats.estimateKeyframeBytes(mKeyframeCount)
+                + AnimationStats.estimatePathBytes(mPathSampleCount)
+                + AnimationStats.estimateCueBytes(mCues.size())
+                + AnimationStats.estimateStartValueBytes(mPlayer.getReleasedStartCount());
+
+        if(mTimeline != null) {
+            bytes += AnimationStats.estimateTimelineBytes(mTimeline);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Adds this group, and every nested group, to a set.
+     * @param groups The set to add to.
      */
-    private ViewPropertyAnimator startAnimation(View view, TreeSet<AnimationValue> animations, int startTime) {
-        // Keep track of t he previous value, to know when to start an animation.
-        AnimationValue prevValue = null;
+    private void collectGroups(Set<GroupAnimator> groups) {
+        if(groups.add(this)) {
+            for(ChildGroup child : mChildren) {
+                child.mGroup.collectGroups(groups);
+            }
+        }
+    }
 
-        // Reset just after an animator has been started, so we know to setup the next one.
-        boolean setupAnimator = false;
+    /**
+     * Adds the contents of this group, and any nested groups, to a stats snapshot.
+     * @param stats The stats to add to.
+     */
+    private void collectStats(AnimationStats stats) {
+        stats.mGroupCount++;
+        stats.mViewEntryCount += mAnimatorMap.size();
+        stats.mViewCount += mAnimatorMap.size() + getBulkOnlyTargetCount();
+        stats.mSegmentCount += mSegmentCount + mBulkSegmentCount;
+        stats.mBulkSegmentCount += mBulkSegmentCount;
+        stats.mCueCount += mCues.size();
+        stats.mKeyframeCount += mKeyframeCount;
+        stats.mPathSampleCount += mPathSampleCount;
+
+        if(mTimeline != null) {
+            stats.addTimeline(mTimeline);
+        }
 
-        // View property animator to operate on.
-        ViewPropertyAnimator animator = view.animate();
+        stats.mStartValueCount += mPlayer.getReleasedStartCount();
 
-        System.out.println("Animating property count " + animations.size());
+        if(mPlayer.isRunning()) {
+            stats.mActiveAnimatorCount++;
+            stats.mActiveSegmentCount += mTimeline.getActiveCount();
+        }
 
-        for (AnimationValue value : animations) {
-            // If the value is not null, and the start delay is not the current delay OR
-            // the duration is not the current duration... then start the previous animation, and
-            // set up this one.
-            if (prevValue != null && (prevValue.mStartDelay != value.mStartDelay || prevValue.mDuration != value.mDuration)) {
-                System.out.println("Starting animation batch");
-                setupAnimator = false;
-                animator.start();
+        for(ChildGroup child : mChildren) {
+            if(stats.countOnce(child.mGroup)) {
+                child.mGroup.collectStats(stats);
             }
+        }
+    }
 
-            // Only process this animation, if the total duration is greater than the start time.
-            if(value.getTotalDuration() > startTime) {
-                // Set up the initial animator.
-                if (!setupAnimator) {
-
-                    final int delay, duration;
-                    if(startTime > value.mStartDelay) {
-                        delay = 0;
-                        duration = value.getTotalDuration() - startTime;
-                    } else {
-                        delay = value.mStartDelay - startTime;
-                        duration = value.mDuration;
-                    }
-
-                    System.out.println("Duration " + duration + " | Delay " + delay);
-                    animator.setDuration(duration);
-                    animator.setStartDelay(delay);
-                    setupAnimator = true;
-                }
+    /**
+     * @return The number of distinct targets animated in bulk, which aren't also animated through
+     * the fluent methods.
+     */
+    private int getBulkOnlyTargetCount() {
+        if(mBulkAnimations.isEmpty()) {
+            return 0;
+        }
 
-                System.out.println("Animating value " + value.mProperty + " " + value.mValue);
-                animateValue(animator, value);
-                prevValue = value;
+        HashSet<AnimationTarget> targets = new HashSet<>();
+        for(BulkAnimation bulk : mBulkAnimations) {
+            for(AnimationTarget target : bulk.mTargets) {
+                if(!mAnimatorMap.containsKey(target)) {
+                    targets.add(target);
+                }
             }
         }
 
-        // Start the final piece of the animation, so long as we had something animated.
-        if(prevValue != null) {
-            System.out.println("Starting animation batch");
-            animator.start();
-            return animator;
+        return targets.size();
+    }
+
+    /**
+     * Sets the maximum heap this group may retain, checked before the group grows or builds its
+     * timeline. BUDGET_FAIL throws as soon as the budget would be exceeded. BUDGET_COMPACT first
+     * releases out of date timelines which aren't playing, and only throws if the group would
+     * still be over budget. A change which throws is not made, so the group is left as it was.
+     * @param maxBytes The maximum heap retained, in bytes, or 0 for no limit.
+     * @param budgetPolicy BUDGET_FAIL or BUDGET_COMPACT.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withMemoryBudget(long maxBytes, int budgetPolicy) {
+        final long previousBudget = mMemoryBudget;
+        final int previousPolicy = mBudgetPolicy;
+        mMemoryBudget = maxBytes;
+        mBudgetPolicy = budgetPolicy;
+
+        // A budget the group doesn't fit is not applied.
+        try {
+            checkMemoryBudget(0);
+        } catch (IllegalStateException e) {
+            mMemoryBudget = previousBudget;
+            mBudgetPolicy = previousPolicy;
+            throw e;
         }
 
-        return null;
+        return this;
     }
 
     /**
-     * Gets the value for a particular animatable property.
-     * @param view The view to grab the value for.
-     * @param propertyConstant The property being fetched.
-     * @return The value of the property being fetched.
-     */
-    private float getValue(View view, int propertyConstant) {
-        switch (propertyConstant) {
-            case TRANSLATION_X:
-                return view.getTranslationX();
-            case TRANSLATION_Y:
-                return view.getTranslationY();
-            case TRANSLATION_Z:
-                return view.getTranslationZ();
-            case ROTATION:
-                return view.getRotation();
-            case ROTATION_X:
-                return view.getRotationX();
-            case ROTATION_Y:
-                return view.getRotationY();
-            case SCALE_X:
-                return view.getScaleX();
-            case SCALE_Y:
-                return view.getScaleY();
-            case X:
-                return view.getLeft() + view.getTranslationX();
-            case Y:
-                return view.getTop() + view.getTranslationY();
-            case Z:
-                return view.getElevation() + view.getTranslationZ();
-            case ALPHA:
-                return view.getAlpha();
-        }
-
-        return 0;
-    }
-
-    /**
-     * Animates the correct property with a value.
-     * @param animator The animator to use.
-     * @param value The AnimationValue instance to animate with.
-     */
-    private void animateValue(ViewPropertyAnimator animator, AnimationValue value) {
-        switch (value.mProperty) {
-            case TRANSLATION_X:
-                animator.translationX(value.mValue);
-                break;
-            case TRANSLATION_Y:
-                animator.translationY(value.mValue);
-                break;
-            case TRANSLATION_Z:
-                animator.translationZ(value.mValue);
-                break;
-            case SCALE_X:
-                animator.scaleX(value.mValue);
-                break;
-            case SCALE_Y:
-                animator.scaleY(value.mValue);
-                break;
-            case ROTATION:
-                animator.rotation(value.mValue);
-                break;
-            case ROTATION_X:
-                animator.rotationX(value.mValue);
-                break;
-            case ROTATION_Y:
-                animator.rotationY(value.mValue);
-                break;
-            case X:
-                animator.x(value.mValue);
-                break;
-            case Y:
-                animator.y(value.mValue);
-                break;
-            case Z:
-                animator.z(value.mValue);
-                break;
-            case ALPHA:
-                animator.alpha(value.mValue);
-                break;
+     * Checks the group would stay within its memory budget after growing, compacting if allowed.
+     * Called before the group is changed, so a group which doesn't fit is left as it was.
+     * @param additionalBytes The estimated size the group is about to grow by.
+     * @throws IllegalStateException If the group would exceed its memory budget.
+     */
+    private void checkMemoryBudget(long additionalBytes) {
+        if(mMemoryBudget <= 0) {
+            return;
+        }
+
+        long bytes = estimateRetainedBytes();
+        if(bytes + additionalBytes > mMemoryBudget && mBudgetPolicy == BUDGET_COMPACT) {
+            // Growing changes the group, which leaves its current timeline out of date as well.
+            compact(additionalBytes > 0);
+            bytes = estimateRetainedBytes();
+        }
+
+        if(bytes + additionalBytes > mMemoryBudget) {
+            throw new IllegalStateException("GroupAnimator would exceed its memory budget of "
+                    + mMemoryBudget + " bytes, growing by " + additionalBytes + " bytes: " + getStats());
         }
     }
 
     /**
-     * Starts the animation sequence.
-     * @param startPercent The animation percent to start at.
+     * Releases anything this group, and any nested groups, no longer needs. Timelines are released
+     * once the group has changed since they were built, as long as they are not playing or paused.
+     * Groups which have been started keep the value each track started from, so they can still
+     * be resumed.
+     * @param changing Whether this group is about to change, so its timeline is out of date.
      */
-    public void start(float startPercent) {
-        int startTime = (int) (startPercent * mAnimationLength);
+    private void compact(boolean changing) {
+        if(mTimeline != null && (changing || mTimelineVersion != getVersion())
+                && !mPlayer.isRunning() && !mPlayer.isPaused()) {
+            mTimeline = null;
+            mPlayer.release();
+        }
 
-        System.out.println("Start time " + startTime);
+        mChildren.trimToSize();
+        mCues.trimToSize();
+        mBulkAnimations.trimToSize();
 
-        Set<View> views = mAnimatorMap.keySet();
-        for(View v : views) {
-            ViewPropertyAnimator animator = startAnimation(v, mAnimatorMap.get(v), startTime);
-            if(animator != null) {
-                mActiveAnimators.add(animator);
-            }
+        for(ChildGroup child : mChildren) {
+            child.mGroup.compact(false);
         }
-
-        mPlaybackStartTime = System.currentTimeMillis() - startTime;
     }
 
     /**
-     * Starts the animation sequence.
+     * Sets the policy used to scale and throttle playback. By default the shared policy is used.
+     * @param policy The policy to use, or null to use the default policy.
+     * @return This AnimationState instance.
      */
-    public void start() {
-        start(0);
+    public GroupAnimator withPlaybackPolicy(PlaybackPolicy policy) {
+        mPlaybackPolicy = policy;
+        return this;
     }
 
     /**
-     * Uses the currently defined animation set, to generate a new instance of GroupAnimator,
-     * which will have the animation reversed. The reverse values are captured based on the current
-     * view states.
-     * @return A cloned and reversed version of this GroupAnimator.
+     * Scales the length of the whole group, without changing the animations it holds. This is
+     * applied as the group plays, so can be changed at any time, including mid playback. Nested
+     * groups play at the time scale of the group they are nested in.
+     * @param timeScale Multiplier applied to the length of the group, where 2 plays the group
+     *                  over twice as long.
+     * @return This AnimationState instance.
      */
-    public GroupAnimator cloneReverse() {
-        GroupAnimator reverseAnimator = new GroupAnimator();
-        reverseAnimator.mAnimationLength = mAnimationLength;
-
-        Set<View> views = mAnimatorMap.keySet();
-        for(View v : views) {
-            TreeSet<AnimationValue> animations = mAnimatorMap.get(v);
-            TreeSet<AnimationValue> reverseAnimations = getReverseAnimationSet(v, animations);
-            reverseAnimator.mAnimatorMap.put(v, reverseAnimations);
+    public GroupAnimator withTimeScale(float timeScale) {
+        if(timeScale <= 0) {
+            throw new IllegalArgumentException("Time scale must be positive: " + timeScale);
         }
 
-        return reverseAnimator;
+        mPlayer.setTimeScale(timeScale);
+        return this;
     }
 
     /**
-     * Returns a set of animators, which will play in the reverse direction. This method takes
-     * durations and start delays into account.
-     * @param view The view to pull the current property states from.
-     * @param animations The animation set to reverse.
-     * @return The reverse animation set.
+     * @return Multiplier applied to the length of the group.
      */
-    private TreeSet<AnimationValue> getReverseAnimationSet(View view, TreeSet<AnimationValue> animations) {
-        if(animations != null && !animations.isEmpty()) {
-            TreeSet<AnimationValue> reverseAnimations = createAnimationStateSet();
-            Iterator<AnimationValue> iter = animations.descendingIterator();
-
-            int totalAnimationTime = mAnimationLength;
-
-            while (iter.hasNext()) {
-                AnimationValue value = iter.next();
-                AnimationValue reverse = new AnimationValue(
-                        value.mProperty,
-                        getValue(view, value.mProperty),
-                        value.mDuration,
-                        totalAnimationTime - value.getTotalDuration()
-                );
+    public float getTimeScale() {
+        return mPlayer.getTimeScale();
+    }
 
-                reverseAnimations.add(reverse);
-            }
+    /**
+     * Warps the group's clock, mapping the fraction of the group played to a fraction of the
+     * group's animations. Like the time scale, this is applied as the group plays, and the
+     * animation percent continues to report the group's clock. The warp should map 0 to 0 and 1
+     * to 1, and should be monotonic, so cues are passed in order.
+     * @param timeWarp The warp curve, or null to play the group evenly.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withTimeWarp(TimeInterpolator timeWarp) {
+        mPlayer.setTimeWarp(timeWarp);
+        return this;
+    }
 
-            return reverseAnimations;
+    /**
+     * Sets the weight this group's changes are blended with. Only blended groups have a weight.
+     * @param weight The weight, where 1 adds the full change made by the group.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withWeight(float weight) {
+        if(mLayer == null) {
+            throw new IllegalStateException("Only groups created with an AnimationBlender have a weight");
         }
 
-        return null;
+        mLayer.mWeight = weight;
+        return this;
     }
 
     /**
-     * Cancels the currently playing animation sequence.
+     * Sets the playback priority. Low priority groups are updated at a reduced frame rate while
+     * the device is saving power or is thermally throttled.
+     * @param priority One of the PlaybackPolicy priorities.
+     * @return This AnimationState instance.
      */
-    public void cancel() {
-        for(ViewPropertyAnimator animator : mActiveAnimators) {
-            animator.cancel();
-        }
-
-        mActiveAnimators.clear();
+    public GroupAnimator withPriority(int priority) {
+        mPriority = priority;
+        mPlayer.setPriority(priority);
+        return this;
     }
 
     /**
@@ -475,7 +1355,125 @@ public class GroupAnimator {
      * @return This AnimationState instance.
      */
     public GroupAnimator withTarget(View view) {
-        mTarget = view;
+        mTarget = new ViewTarget(view);
+        return this;
+    }
+
+    /**
+     * Sets a sprite to be the target of the commands following this.
+     * @param sprites The store holding the sprite.
+     * @param index The index of the sprite to animate.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator withSprite(SpriteStore sprites, int index) {
+        mTarget = sprites.getTarget(index);
+        return this;
+    }
+
+    /**
+     * Sets a target to be the target of the commands following this.
+     * @param target The target to animate.
+     * @return This AnimationState instance.
+     */
+    GroupAnimator withTarget(AnimationTarget target) {
+        mTarget = target;
+        return this;
+    }
+
+    /**
+     * Animates one property across many views at once, from packed arrays. This avoids the per
+     * call cost of the fluent methods, for choreographies generated by code. The arrays are
+     * copied, so may be reused once this returns.
+     * @param views The views to animate.
+     * @param property The property to animate, one of the property definitions, other than
+     *                 BACKGROUND_COLOR.
+     * @param values The values to animate to, one per view.
+     * @param delays The animation start delays, one per view, or null to use the default delay.
+     * @param durations The durations to animate for, one per view, or null to use the default
+     *                  duration.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator animate(View[] views, int property, float[] values, int[] delays, int[] durations) {
+        // Several properties of the same views are often animated in turn, so share the targets.
+        AnimationTarget[] targets = mLastViewTargets;
+        if(!isTargetOf(targets, views)) {
+            targets = new AnimationTarget[views.length];
+            for(int i=0; i < views.length; i++) {
+                targets[i] = new ViewTarget(views[i]);
+            }
+            mLastViewTargets = targets;
+        }
+
+        animateBulk(targets, property, values, delays, durations);
+        return this;
+    }
+
+    /**
+     * @param targets View targets, or null.
+     * @param views The views to check against.
+     * @return Whether the targets wrap exactly the given views, in the same order.
+     */
+    private static boolean isTargetOf(AnimationTarget[] targets, View[] views) {
+        if(targets == null || targets.length != views.length) {
+            return false;
+        }
+
+        for(int i=0; i < views.length; i++) {
+            if(((ViewTarget) targets[i]).mView != views[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Animates one property across many views at once, from packed arrays, using the default
+     * timing.
+     * @param views The views to animate.
+     * @param property The property to animate, one of the property definitions, other than
+     *                 BACKGROUND_COLOR.
+     * @param values The values to animate to, one per view.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator animate(View[] views, int property, float[] values) {
+        animate(views, property, values, null, null);
+        return this;
+    }
+
+    /**
+     * Animates one property of every sprite in a store at once, from packed arrays.
+     * @param sprites The sprites to animate.
+     * @param property The property to animate, one of the property definitions sprites have.
+     * @param values The values to animate to, one per sprite.
+     * @param delays The animation start delays, one per sprite, or null to use the default delay.
+     * @param durations The durations to animate for, one per sprite, or null to use the default
+     *                  duration.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator animate(SpriteStore sprites, int property, float[] values, int[] delays, int[] durations) {
+        AnimationTarget[] targets = new AnimationTarget[sprites.getCount()];
+        for(int i=0; i < targets.length; i++) {
+            targets[i] = sprites.getTarget(i);
+        }
+
+        animateBulk(targets, property, values, delays, durations);
+        return this;
+    }
+
+    /**
+     * Animates one property across many targets at once, from packed arrays.
+     * @param targets The targets to animate.
+     * @param property The property to animate.
+     * @param values The values to animate to, one per target.
+     * @param delays The animation start delays, one per target, or null to use the default delay.
+     * @param durations The durations to animate for, one per target, or null to use the default
+     *                  duration.
+     * @return This AnimationState instance.
+     */
+    GroupAnimator animate(AnimationTarget[] targets, int property, float[] values, int[] delays,
+                          int[] durations) {
+        animateBulk(targets.clone(), property, values, delays, durations);
         return this;
     }
 
@@ -874,4 +1872,209 @@ public class GroupAnimator {
         alpha(value, mDefaultDuration, mDefaultDelay);
         return this;
     }
+
+    /**
+     * Moves a view's translation along a path, starting from the path's first point.
+     * @param path The path to follow, in the view's translation coordinates. The path should not
+     * change once animated.
+     * @param duration The duration to animate for.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator alongPath(Path path, int duration, int startDelay) {
+        animatePath(mTarget, path, duration, startDelay);
+        return this;
+    }
+
+    /**
+     * Moves a view's translation along a path, starting from the path's first point.
+     * @param path The path to follow, in the view's translation coordinates.
+     * @param duration The duration to animate for.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator alongPath(Path path, int duration) {
+        alongPath(path, duration, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Moves a view's translation along a path, starting from the path's first point.
+     * @param path The path to follow, in the view's translation coordinates.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator alongPath(Path path) {
+        alongPath(path, mDefaultDuration, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's background color. Each channel of the color is blended separately.
+     * @param color The packed ARGB color to animate to.
+     * @param duration The duration to animate for.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator backgroundColor(int color, int duration, int startDelay) {
+        animateColor(mTarget, BACKGROUND_COLOR, color, duration, startDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's background color.
+     * @param color The packed ARGB color to animate to.
+     * @param duration The duration to animate for.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator backgroundColor(int color, int duration) {
+        backgroundColor(color, duration, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's background color.
+     * @param color The packed ARGB color to animate to.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator backgroundColor(int color) {
+        backgroundColor(color, mDefaultDuration, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's x translation through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator translationXKeyframes(float[] times, float[] values, int startDelay) {
+        animateKeyframes(mTarget, TRANSLATION_X, times, values, startDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's x translation through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator translationXKeyframes(float[] times, float[] values) {
+        translationXKeyframes(times, values, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's y translation through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator translationYKeyframes(float[] times, float[] values, int startDelay) {
+        animateKeyframes(mTarget, TRANSLATION_Y, times, values, startDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's y translation through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator translationYKeyframes(float[] times, float[] values) {
+        translationYKeyframes(times, values, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's x scale through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator scaleXKeyframes(float[] times, float[] values, int startDelay) {
+        animateKeyframes(mTarget, SCALE_X, times, values, startDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's x scale through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator scaleXKeyframes(float[] times, float[] values) {
+        scaleXKeyframes(times, values, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's y scale through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator scaleYKeyframes(float[] times, float[] values, int startDelay) {
+        animateKeyframes(mTarget, SCALE_Y, times, values, startDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's y scale through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator scaleYKeyframes(float[] times, float[] values) {
+        scaleYKeyframes(times, values, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's rotation through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator rotationKeyframes(float[] times, float[] values, int startDelay) {
+        animateKeyframes(mTarget, ROTATION, times, values, startDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's rotation through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator rotationKeyframes(float[] times, float[] values) {
+        rotationKeyframes(times, values, mDefaultDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's alpha through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @param startDelay The animation start delay.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator alphaKeyframes(float[] times, float[] values, int startDelay) {
+        animateKeyframes(mTarget, ALPHA, times, values, startDelay);
+        return this;
+    }
+
+    /**
+     * Animates a view's alpha through a series of keyframes, played as a single track.
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     * @return This AnimationState instance.
+     */
+    public GroupAnimator alphaKeyframes(float[] times, float[] values) {
+        alphaKeyframes(times, values, mDefaultDelay);
+        return this;
+    }
 }
@@ -0,0 +1,118 @@
+package com.malba.animation;
+
+import java.util.Arrays;
+
+/**
+ * A property animated through a series of keyframes, stored as packed arrays of times and values.
+ * The whole track plays as a single segment. Each step between keyframes is eased in the same way
+ * as a segment, and the keyframe being played is found with a cursor, which only moves past the
+ * keyframes crossed since the last lookup.
+ */
+final class KeyframeTrack {
+    // Keyframe times in milliseconds from the start of the track, in ascending order.
+    private final float[] mTimes;
+
+    // The value at each keyframe.
+    private final float[] mValues;
+
+    /**
+     * @param times Keyframe times in milliseconds from the start of the track, in ascending order.
+     * @param values The value at each keyframe.
+     */
+    KeyframeTrack(float[] times, float[] values) {
+        if(times.length == 0 || times.length != values.length) {
+            throw new IllegalArgumentException("Expected matching, non empty times and values");
+        }
+
+        for(int i=0; i < times.length; i++) {
+            if(times[i] < 0 || (i > 0 && times[i] < times[i - 1])) {
+                throw new IllegalArgumentException("Keyframe times must be ascending and not negative");
+            }
+        }
+
+        mTimes = times;
+        mValues = values;
+    }
+
+    /**
+     * @return The duration of the track, up to its last keyframe.
+     */
+    int getDuration() {
+        return (int) Math.ceil(mTimes[mTimes.length - 1]);
+    }
+
+    /**
+     * @return The number of keyframes in the track.
+     */
+    int getKeyframeCount() {
+        return mTimes.length;
+    }
+
+    /**
+     * @param times Keyframe times to compare against.
+     * @param values Keyframe values to compare against.
+     * @return Whether the track holds exactly these keyframes.
+     */
+    boolean matches(float[] times, float[] values) {
+        return Arrays.equals(mTimes, times) && Arrays.equals(mValues, values);
+    }
+
+    /**
+     * @return The value of the last keyframe.
+     */
+    float getEndValue() {
+        return mValues[mValues.length - 1];
+    }
+
+    /**
+     * Moves a cursor to the keyframe a time falls after.
+     * @param cursor The keyframe the cursor was last at.
+     * @param time The time from the start of the track.
+     * @return The last keyframe at or before the time, or 0 if the time is before every keyframe.
+     */
+    int seek(int cursor, float time) {
+        final int last = mTimes.length - 1;
+
+        while(cursor < last && mTimes[cursor + 1] <= time) {
+            cursor++;
+        }
+
+        while(cursor > 0 && mTimes[cursor] > time) {
+            cursor--;
+        }
+
+        return cursor;
+    }
+
+    /**
+     * @param cursor The keyframe the time falls after, as found by seek().
+     * @param time The time from the start of the track.
+     * @return The value of the track at the time.
+     */
+    float getValue(int cursor, float time) {
+        if(cursor == mTimes.length - 1 || time <= mTimes[cursor]) {
+            return mValues[cursor];
+        }
+
+        final float start = mTimes[cursor];
+        final float fraction = Timeline.interpolate((time - start) / (mTimes[cursor + 1] - start));
+        return mValues[cursor] + (mValues[cursor + 1] - mValues[cursor]) * fraction;
+    }
+
+    /**
+     * @return The same track, played from the last keyframe to the first.
+     */
+    KeyframeTrack reversed() {
+        final int count = mTimes.length;
+        final float duration = mTimes[count - 1];
+        float[] times = new float[count];
+        float[] values = new float[count];
+
+        for(int i=0; i < count; i++) {
+            times[i] = duration - mTimes[count - 1 - i];
+            values[i] = mValues[count - 1 - i];
+        }
+
+        return new KeyframeTrack(times, values);
+    }
+}
@@ -0,0 +1,157 @@
+package com.malba.animation;
+
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+
+import java.util.WeakHashMap;
+
+/**
+ * A path flattened into points spaced evenly by arc length, so the position at any fraction of
+ * the path is a table lookup instead of a PathMeasure call. Tables are cached per path, and shared
+ * by everything following the same path.
+ */
+final class PathTable {
+    // The distance between samples along the path, in pixels.
+    private static final float SAMPLE_SPACING = 2f;
+
+    // The most samples taken from a single path.
+    private static final int MAX_SAMPLES = 2048;
+
+    // Tables for paths which are still referenced elsewhere.
+    private static final WeakHashMap<Path, PathTable> sTables = new WeakHashMap<>();
+
+    // Sampled coordinates, evenly spaced along the path.
+    private final float[] mXs;
+    private final float[] mYs;
+
+    // The same table, running in the other direction. Built on demand.
+    private PathTable mReversed;
+
+    /**
+     * @param xs Sampled x coordinates, evenly spaced along the path. At least 2 are required.
+     * @param ys Sampled y coordinates, evenly spaced along the path.
+     */
+    PathTable(float[] xs, float[] ys) {
+        mXs = xs;
+        mYs = ys;
+    }
+
+    /**
+     * Gets the table for a path, flattening the path the first time it is seen. Paths are
+     * treated as unchanging once they have been flattened.
+     * @param path The path to flatten.
+     * @return The table for the path.
+     */
+    static PathTable forPath(Path path) {
+        synchronized (sTables) {
+            PathTable table = sTables.get(path);
+            if(table == null) {
+                table = flatten(path);
+                sTables.put(path, table);
+            }
+
+            return table;
+        }
+    }
+
+    /**
+     * Samples a path, across all of its contours, at evenly spaced distances.
+     * @param path The path to flatten.
+     * @return The table for the path.
+     */
+    private static PathTable flatten(Path path) {
+        PathMeasure measure = new PathMeasure(path, false);
+
+        float length = 0;
+        do {
+            length += measure.getLength();
+        } while(measure.nextContour());
+
+        final int count = Math.max(2, Math.min(MAX_SAMPLES, (int) Math.ceil(length / SAMPLE_SPACING) + 1));
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        float[] position = new float[2];
+
+        measure.setPath(path, false);
+        float contourStart = 0;
+        float contourLength = measure.getLength();
+
+        for(int i=0; i < count; i++) {
+            final float distance = length * i / (count - 1);
+
+            // Move on to the contour holding this distance.
+            while(distance > contourStart + contourLength && measure.nextContour()) {
+                contourStart += contourLength;
+                contourLength = measure.getLength();
+            }
+
+            measure.getPosTan(Math.min(distance - contourStart, contourLength), position, null);
+            xs[i] = position[0];
+            ys[i] = position[1];
+        }
+
+        return new PathTable(xs, ys);
+    }
+
+    /**
+     * @return The number of points sampled from the path.
+     */
+    int getSampleCount() {
+        return mXs.length;
+    }
+
+    /**
+     * @param fraction The fraction along the path, between 0 and 1.
+     * @return The x coordinate at the fraction.
+     */
+    float getX(float fraction) {
+        return sample(mXs, fraction);
+    }
+
+    /**
+     * @param fraction The fraction along the path, between 0 and 1.
+     * @return The y coordinate at the fraction.
+     */
+    float getY(float fraction) {
+        return sample(mYs, fraction);
+    }
+
+    /**
+     * @return The same table, running from the end of the path to the start.
+     */
+    PathTable reversed() {
+        if(mReversed == null) {
+            final int count = mXs.length;
+            float[] xs = new float[count];
+            float[] ys = new float[count];
+            for(int i=0; i < count; i++) {
+                xs[i] = mXs[count - 1 - i];
+                ys[i] = mYs[count - 1 - i];
+            }
+
+            mReversed = new PathTable(xs, ys);
+            mReversed.mReversed = this;
+        }
+
+        return mReversed;
+    }
+
+    /**
+     * Linearly interpolates between the two samples either side of a fraction.
+     * @param samples The samples to read.
+     * @param fraction The fraction along the path, between 0 and 1.
+     * @return The interpolated sample.
+     */
+    private static float sample(float[] samples, float fraction) {
+        final int last = samples.length - 1;
+        final float position = Math.max(0, Math.min(1, fraction)) * last;
+        final int index = (int) position;
+
+        if(index >= last) {
+            return samples[last];
+        }
+
+        final float start = samples[index];
+        return start + (samples[index + 1] - start) * (position - index);
+    }
+}
@@ -0,0 +1,127 @@
+package com.malba.animation;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.PowerManager;
+import android.provider.Settings;
+
+/**
+ * Decides how a GroupAnimator plays back, based on the system animator duration scale, battery
+ * saver and thermal state. Low priority groups are updated at a reduced frame rate while the
+ * device is saving power or is thermally throttled.
+ */
+public class PlaybackPolicy {
+    // Group priorities, used to decide which groups may be throttled.
+    public static final int PRIORITY_DEFAULT   = 0;
+    public static final int PRIORITY_LOW       = 1;
+
+    // The frame rate low priority groups are reduced to, by default.
+    private static final int DEFAULT_THROTTLED_FRAME_RATE = 30;
+
+    // Frame times jitter around the vsync interval, so allow some slack when throttling.
+    private static final long FRAME_TOLERANCE = 4;
+
+    // Policy which ignores system state, used when there is no context to read it from.
+    static final PlaybackPolicy UNMANAGED = new PlaybackPolicy();
+
+    // Shared policy, used by any GroupAnimator without a policy of its own.
+    private static PlaybackPolicy sDefaultPolicy;
+
+    private final ContentResolver mContentResolver;
+    private final PowerManager mPowerManager;
+
+    // The frame rate low priority groups are reduced to.
+    private int mThrottledFrameRate = DEFAULT_THROTTLED_FRAME_RATE;
+
+    // Whether the device is thermally throttled, as reported by the application.
+    private volatile boolean mThermalThrottled;
+
+    /**
+     * @param context Any context, the application context is retained.
+     * @return The shared PlaybackPolicy instance.
+     */
+    public static synchronized PlaybackPolicy getDefault(Context context) {
+        if(sDefaultPolicy == null) {
+            sDefaultPolicy = new PlaybackPolicy(context);
+        }
+
+        return sDefaultPolicy;
+    }
+
+    /**
+     * Creates a policy which ignores the system duration scale and battery saver. Playback is
+     * only throttled when reported as thermally throttled.
+     */
+    public PlaybackPolicy() {
+        mContentResolver = null;
+        mPowerManager = null;
+    }
+
+    /**
+     * @param context Any context, the application context is retained.
+     */
+    public PlaybackPolicy(Context context) {
+        Context appContext = context.getApplicationContext();
+        mContentResolver = appContext.getContentResolver();
+        mPowerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+    }
+
+    /**
+     * @return The system animator duration scale. A scale of 0 means animations are disabled.
+     */
+    public float getDurationScale() {
+        if(mContentResolver == null) {
+            return 1f;
+        }
+
+        return Settings.Global.getFloat(mContentResolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+    }
+
+    /**
+     * @return Whether battery saver is currently enabled.
+     */
+    public boolean isPowerSaveMode() {
+        return mPowerManager != null && mPowerManager.isPowerSaveMode();
+    }
+
+    /**
+     * Reports the thermal state of the device. The platform thermal status API is newer than the
+     * SDK this library compiles against, so applications forward it here.
+     * @param throttled Whether the device is thermally throttled.
+     */
+    public void setThermalThrottled(boolean throttled) {
+        mThermalThrottled = throttled;
+    }
+
+    /**
+     * @return Whether the device has been reported as thermally throttled.
+     */
+    public boolean isThermalThrottled() {
+        return mThermalThrottled;
+    }
+
+    /**
+     * Sets the frame rate low priority groups are reduced to, while throttled.
+     * @param frameRate The frame rate, in frames per second.
+     */
+    public void setThrottledFrameRate(int frameRate) {
+        if(frameRate <= 0) {
+            throw new IllegalArgumentException("Frame rate must be positive: " + frameRate);
+        }
+
+        mThrottledFrameRate = frameRate;
+    }
+
+    /**
+     * Gets the minimum time between updates for a group of the given priority.
+     * @param priority The priority of the group.
+     * @return The minimum time between updates in milliseconds, or 0 to update every frame.
+     */
+    public long getFrameInterval(int priority) {
+        if(priority == PRIORITY_LOW && (isPowerSaveMode() || isThermalThrottled())) {
+            return Math.max(0, 1000 / mThrottledFrameRate - FRAME_TOLERANCE);
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,195 @@
+package com.malba.animation;
+
+/**
+ * Position, scale, rotation and alpha of a fixed number of sprites, stored in packed arrays. A
+ * GroupAnimator animates sprites the same way as views, without the measure, layout and display
+ * list cost of a view per item. Sprites are drawn by a SpriteView, but the store itself has no
+ * dependency on views, so it can be animated without a display.
+ *
+ * Sprites have no layout position, so x and translation x both move a sprite's center, as do y
+ * and translation y.
+ */
+public class SpriteStore {
+    // The number of sprites held.
+    private final int mCount;
+
+    // Packed sprite properties, indexed by sprite.
+    final float[] mXs;
+    final float[] mYs;
+    final float[] mScaleXs;
+    final float[] mScaleYs;
+    final float[] mRotations;
+    final float[] mAlphas;
+
+    // Animation targets for each sprite, created the first time a sprite is animated.
+    private final AnimationTarget[] mTargets;
+
+    // Run the first time the store changes after being drawn.
+    Runnable mOnChanged;
+
+    // Whether the store has changed since it was last drawn.
+    boolean mChanged;
+
+    // The policy to play the sprites' animations with, or null if not known yet.
+    PlaybackPolicy mPlaybackPolicy;
+
+    /**
+     * Creates a store of sprites at the origin, at full scale and alpha.
+     * @param count The number of sprites to hold.
+     */
+    public SpriteStore(int count) {
+        mCount = count;
+        mXs = new float[count];
+        mYs = new float[count];
+        mScaleXs = new float[count];
+        mScaleYs = new float[count];
+        mRotations = new float[count];
+        mAlphas = new float[count];
+        mTargets = new AnimationTarget[count];
+
+        for(int i=0; i < count; i++) {
+            mScaleXs[i] = 1;
+            mScaleYs[i] = 1;
+            mAlphas[i] = 1;
+        }
+    }
+
+    /**
+     * Sets the policy used to play animations of the sprites, by groups without a policy of their
+     * own. A SpriteView sets the shared policy of its context, so only stores animated without a
+     * view need this.
+     * @param policy The policy to play the sprites' animations with.
+     */
+    public void setPlaybackPolicy(PlaybackPolicy policy) {
+        mPlaybackPolicy = policy;
+    }
+
+    /**
+     * @return The number of sprites held.
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Gets the value of a sprite property.
+     * @param index The sprite index.
+     * @param property The property being fetched, one of the GroupAnimator property definitions.
+     * @return The value of the property, or 0 if sprites don't have the property.
+     */
+    public float getValue(int index, int property) {
+        switch (property) {
+            case GroupAnimator.TRANSLATION_X:
+            case GroupAnimator.X:
+                return mXs[index];
+            case GroupAnimator.TRANSLATION_Y:
+            case GroupAnimator.Y:
+                return mYs[index];
+            case GroupAnimator.SCALE_X:
+                return mScaleXs[index];
+            case GroupAnimator.SCALE_Y:
+                return mScaleYs[index];
+            case GroupAnimator.ROTATION:
+                return mRotations[index];
+            case GroupAnimator.ALPHA:
+                return mAlphas[index];
+        }
+
+        return 0;
+    }
+
+    /**
+     * Sets the value of a sprite property, without animating.
+     * @param index The sprite index.
+     * @param property The property being set, one of the GroupAnimator property definitions.
+     * Properties sprites don't have are ignored.
+     * @param value The value to set.
+     */
+    public void setValue(int index, int property, float value) {
+        switch (property) {
+            case GroupAnimator.TRANSLATION_X:
+            case GroupAnimator.X:
+                mXs[index] = value;
+                break;
+            case GroupAnimator.TRANSLATION_Y:
+            case GroupAnimator.Y:
+                mYs[index] = value;
+                break;
+            case GroupAnimator.SCALE_X:
+                mScaleXs[index] = value;
+                break;
+            case GroupAnimator.SCALE_Y:
+                mScaleYs[index] = value;
+                break;
+            case GroupAnimator.ROTATION:
+                mRotations[index] = value;
+                break;
+            case GroupAnimator.ALPHA:
+                mAlphas[index] = value;
+                break;
+            default:
+                return;
+        }
+
+        if(!mChanged) {
+            mChanged = true;
+            if(mOnChanged != null) {
+                mOnChanged.run();
+            }
+        }
+    }
+
+    /**
+     * @param index The sprite index.
+     * @return The target to animate the sprite through.
+     */
+    AnimationTarget getTarget(int index) {
+        if(mTargets[index] == null) {
+            mTargets[index] = new SpriteTarget(this, index);
+        }
+
+        return mTargets[index];
+    }
+
+    /**
+     * Animation target which applies values to a single sprite of a store. There is one target
+     * per sprite, so targets are compared by identity.
+     */
+    private static final class SpriteTarget implements AnimationTarget {
+        private final SpriteStore mStore;
+        private final int mIndex;
+
+        /**
+         * @param store The store holding the sprite.
+         * @param index The sprite index.
+         */
+        SpriteTarget(SpriteStore store, int index) {
+            mStore = store;
+            mIndex = index;
+        }
+
+        @Override
+        public float getValue(int property) {
+            return mStore.getValue(mIndex, property);
+        }
+
+        @Override
+        public void setValue(int property, float value) {
+            mStore.setValue(mIndex, property, value);
+        }
+
+        @Override
+        public int getColor(int property) {
+            return 0;
+        }
+
+        @Override
+        public void setColor(int property, int color) {
+        }
+
+        @Override
+        public PlaybackPolicy getPlaybackPolicy() {
+            return mStore.mPlaybackPolicy;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.malba.animation;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+/**
+ * View which draws every sprite of a SpriteStore in a single pass, using the same drawable for
+ * each sprite. The drawable is centered on each sprite's position, then rotated and scaled around
+ * it. The view redraws whenever the store changes.
+ */
+public class SpriteView extends View {
+    // The sprites being drawn.
+    private final SpriteStore mSprites;
+
+    // Drawn once for every sprite.
+    private final Drawable mSprite;
+
+    /**
+     * @param context The view's context.
+     * @param sprite The drawable to draw for every sprite.
+     * @param count The number of sprites to hold.
+     */
+    public SpriteView(Context context, Drawable sprite, int count) {
+        this(context, sprite, new SpriteStore(count));
+    }
+
+    /**
+     * @param context The view's context.
+     * @param sprite The drawable to draw for every sprite.
+     * @param sprites The sprites to draw.
+     */
+    public SpriteView(Context context, Drawable sprite, SpriteStore sprites) {
+        super(context);
+        mSprites = sprites;
+        mSprite = sprite;
+
+        final int width = sprite.getIntrinsicWidth();
+        final int height = sprite.getIntrinsicHeight();
+        mSprite.setBounds(-width / 2, -height / 2, width - width / 2, height - height / 2);
+
+        // Sprites are played with the same system state as views.
+        if(mSprites.mPlaybackPolicy == null) {
+            mSprites.setPlaybackPolicy(PlaybackPolicy.getDefault(context));
+        }
+
+        mSprites.mOnChanged = new Runnable() {
+            @Override
+            public void run() {
+                invalidate();
+            }
+        };
+    }
+
+    /**
+     * @return The sprites drawn by this view.
+     */
+    public SpriteStore getSprites() {
+        return mSprites;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        SpriteStore sprites = mSprites;
+        sprites.mChanged = false;
+
+        for(int i=0; i < sprites.getCount(); i++) {
+            final float alpha = sprites.mAlphas[i];
+            if(alpha <= 0) {
+                continue;
+            }
+
+            canvas.save();
+            canvas.translate(sprites.mXs[i], sprites.mYs[i]);
+            canvas.rotate(sprites.mRotations[i]);
+            canvas.scale(sprites.mScaleXs[i], sprites.mScaleYs[i]);
+            mSprite.setAlpha(Math.round(Math.min(alpha, 1) * 255));
+            mSprite.draw(canvas);
+            canvas.restore();
+        }
+    }
+}
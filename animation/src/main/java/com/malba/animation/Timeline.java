@@ -0,0 +1,821 @@
+package com.malba.animation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Flattened view of a GroupAnimator's segments, including the segments of any nested groups.
+ * Segments are stored in packed arrays, alongside indexes of the same segments ordered by start
+ * time and by end time. This allows the segments crossed between two points in time to be found
+ * with a binary search, instead of walking every segment of every view.
+ *
+ * Most segments animate a float between two values. Path segments follow one axis of a flattened
+ * path instead, keyframe segments play a whole keyframe track, and color segments blend packed
+ * ARGB colors, all without boxing.
+ *
+ * Consecutive segments animating the same property of the same view form a track. Each segment
+ * animates from the end value of the previous segment in its track, so the value of every track
+ * is a pure function of time and the timeline can be evaluated at any time, in either direction.
+ *
+ * Before playback the timeline is diffed against the current state of its targets. Segments which
+ * would leave their target unchanged are dropped from the indexes, so targets which already hold
+ * their end state are never visited, let alone written.
+ */
+final class Timeline {
+    // How a segment's value is produced.
+    static final byte KIND_VALUE    = 0;
+    static final byte KIND_PATH_X   = 1;
+    static final byte KIND_PATH_Y   = 2;
+    static final byte KIND_COLOR    = 3;
+    static final byte KIND_KEYFRAMES = 4;
+
+    // Segments animating a value by no more than this are treated as unchanged.
+    static final float DIFF_EPSILON = 0.001f;
+
+    // The number of segments in the timeline.
+    final int mCount;
+
+    // Packed segment data, indexed by segment.
+    final AnimationTarget[] mTargets;
+    final int[] mProperties;
+    final float[] mValues;
+    final float[] mFromValues;
+    final int[] mStartDelays;
+    final int[] mDurations;
+    final byte[] mKinds;
+
+    // Path and color segment data, only allocated if the timeline holds such segments.
+    PathTable[] mPaths;
+    int[] mColors;
+    int[] mFromColors;
+
+    // Keyframe segment data, and the keyframe each segment was last evaluated at.
+    KeyframeTrack[] mKeyframes;
+    int[] mKeyframeCursors;
+
+    // The previous segment in the same track, or -1, including dropped segments.
+    private final int[] mAllPrevInTrack;
+
+    // Every segment index ordered by start time, and by end time, including dropped segments.
+    private final int[] mAllStartOrder;
+    private final int[] mAllEndOrder;
+
+    // Segments which would leave their target unchanged, as of the last diff.
+    private final boolean[] mDropped;
+
+    // The number of segments which have not been dropped, and so appear in the indexes below.
+    private int mLiveCount;
+
+    // The previous and next segments in the same track which have not been dropped, or -1.
+    final int[] mPrevInTrack;
+    final int[] mNextInTrack;
+
+    // Segment indices ordered by start time, and the matching start times.
+    final int[] mStartOrder;
+    final int[] mSortedStarts;
+
+    // Segment indices ordered by end time, and the matching end times.
+    final int[] mEndOrder;
+    final int[] mSortedEnds;
+
+    // The longest segment duration, which bounds how far back an active segment can start.
+    private int mMaxDuration;
+
+    // Segments which are currently mid animation.
+    private final int[] mActive;
+    private final boolean[] mIsActive;
+    private int mActiveCount;
+
+    // Cue points, ordered by time once the index is built.
+    final int mCueCount;
+    final float[] mCueTimes;
+    final Runnable[] mCueActions;
+
+    // The number of cues at or before the timeline time last evaluated.
+    private int mCueCursor;
+
+    /**
+     * The value each track of a timeline animated from, kept once the timeline is released so a
+     * rebuilt timeline can carry on from the same start values.
+     */
+    static final class StartValues {
+        final int mCount;
+        final AnimationTarget[] mTargets;
+        final int[] mProperties;
+        final float[] mValues;
+        final int[] mColors;
+
+        /**
+         * @param count The number of tracks.
+         * @param hasColors Whether any of the tracks animate colors.
+         */
+        StartValues(int count, boolean hasColors) {
+            mCount = count;
+            mTargets = new AnimationTarget[count];
+            mProperties = new int[count];
+            mValues = new float[count];
+            mColors = hasColors ? new int[count] : null;
+        }
+
+        /**
+         * @return The track of each property of each target, indexed by the property's bit.
+         */
+        HashMap<AnimationTarget, int[]> buildIndex() {
+            HashMap<AnimationTarget, int[]> tracks = new HashMap<>();
+            for(int i=0; i < mCount; i++) {
+                int[] slots = tracks.get(mTargets[i]);
+                if(slots == null) {
+                    slots = new int[Integer.SIZE];
+                    Arrays.fill(slots, -1);
+                    tracks.put(mTargets[i], slots);
+                }
+
+                slots[Integer.numberOfTrailingZeros(mProperties[i])] = i;
+            }
+
+            return tracks;
+        }
+    }
+
+    /**
+     * @param count The number of segments the timeline will hold.
+     * @param cueCount The number of cues the timeline will hold.
+     */
+    Timeline(int count, int cueCount) {
+        mCount = count;
+        mTargets = new AnimationTarget[count];
+        mProperties = new int[count];
+        mValues = new float[count];
+        mFromValues = new float[count];
+        mStartDelays = new int[count];
+        mDurations = new int[count];
+        mKinds = new byte[count];
+        mAllPrevInTrack = new int[count];
+        mAllStartOrder = new int[count];
+        mAllEndOrder = new int[count];
+        mDropped = new boolean[count];
+        mPrevInTrack = new int[count];
+        mNextInTrack = new int[count];
+        mStartOrder = new int[count];
+        mSortedStarts = new int[count];
+        mEndOrder = new int[count];
+        mSortedEnds = new int[count];
+        mActive = new int[count];
+        mIsActive = new boolean[count];
+        mCueCount = cueCount;
+        mCueTimes = new float[cueCount];
+        mCueActions = new Runnable[cueCount];
+    }
+
+    /**
+     * Sets the data for a single segment.
+     * @param index The segment index.
+     * @param target The target being animated.
+     * @param property The property being animated.
+     * @param value The value being animated to.
+     * @param duration The duration the animation will last.
+     * @param startDelay The start delay of the animation.
+     */
+    void setSegment(int index, AnimationTarget target, int property, float value, int duration, int startDelay) {
+        mTargets[index] = target;
+        mProperties[index] = property;
+        mValues[index] = value;
+        mDurations[index] = duration;
+        mStartDelays[index] = startDelay;
+    }
+
+    /**
+     * Sets the data for a segment following one axis of a path.
+     * @param index The segment index.
+     * @param target The target being animated.
+     * @param property The property being animated.
+     * @param kind KIND_PATH_X or KIND_PATH_Y, for the axis of the path to follow.
+     * @param path The path to follow.
+     * @param duration The duration the animation will last.
+     * @param startDelay The start delay of the animation.
+     */
+    void setPathSegment(int index, AnimationTarget target, int property, byte kind, PathTable path,
+                        int duration, int startDelay) {
+        final float end = kind == KIND_PATH_X ? path.getX(1) : path.getY(1);
+        setSegment(index, target, property, end, duration, startDelay);
+
+        if(mPaths == null) {
+            mPaths = new PathTable[mCount];
+        }
+
+        mKinds[index] = kind;
+        mPaths[index] = path;
+    }
+
+    /**
+     * Sets the data for a segment playing a keyframe track.
+     * @param index The segment index.
+     * @param target The target being animated.
+     * @param property The property being animated.
+     * @param keyframes The keyframe track to play.
+     * @param startDelay The start delay of the animation.
+     */
+    void setKeyframeSegment(int index, AnimationTarget target, int property, KeyframeTrack keyframes,
+                            int startDelay) {
+        setSegment(index, target, property, keyframes.getEndValue(), keyframes.getDuration(), startDelay);
+
+        if(mKeyframes == null) {
+            mKeyframes = new KeyframeTrack[mCount];
+            mKeyframeCursors = new int[mCount];
+        }
+
+        mKinds[index] = KIND_KEYFRAMES;
+        mKeyframes[index] = keyframes;
+    }
+
+    /**
+     * Sets the data for a segment animating a packed ARGB color.
+     * @param index The segment index.
+     * @param target The target being animated.
+     * @param property The property being animated.
+     * @param color The color being animated to.
+     * @param duration The duration the animation will last.
+     * @param startDelay The start delay of the animation.
+     */
+    void setColorSegment(int index, AnimationTarget target, int property, int color,
+                         int duration, int startDelay) {
+        setSegment(index, target, property, 0, duration, startDelay);
+
+        if(mColors == null) {
+            mColors = new int[mCount];
+            mFromColors = new int[mCount];
+        }
+
+        mKinds[index] = KIND_COLOR;
+        mColors[index] = color;
+    }
+
+    /**
+     * Sets a single cue point.
+     * @param index The cue index.
+     * @param time The timeline time of the cue. Must not be negative.
+     * @param action The action to run when the cue is reached.
+     */
+    void setCue(int index, float time, Runnable action) {
+        mCueTimes[index] = time;
+        mCueActions[index] = action;
+    }
+
+    /**
+     * Builds the start and end time indexes, the track links and the cue index. Must be called once all
+     * segments have been set.
+     */
+    void buildIndex() {
+        // Pack the times and segment indexes into single longs, so the indexes can be sorted
+        // without boxing.
+        long[] startKeys = new long[mCount];
+        long[] endKeys = new long[mCount];
+        for(int i=0; i < mCount; i++) {
+            startKeys[i] = ((long) mStartDelays[i] << 32) | i;
+            endKeys[i] = ((long) getEnd(i) << 32) | i;
+        }
+
+        Arrays.sort(startKeys);
+        Arrays.sort(endKeys);
+
+        for(int i=0; i < mCount; i++) {
+            mAllStartOrder[i] = (int) startKeys[i];
+            mAllEndOrder[i] = (int) endKeys[i];
+        }
+
+        // Link the segments of each track in start order, remembering the last segment seen for
+        // each property of each target.
+        HashMap<AnimationTarget, int[]> lastInTrack = new HashMap<>();
+        mMaxDuration = 0;
+
+        for(int i=0; i < mCount; i++) {
+            final int index = mAllStartOrder[i];
+            int[] last = lastInTrack.get(mTargets[index]);
+            if(last == null) {
+                last = new int[Integer.SIZE];
+                Arrays.fill(last, -1);
+                lastInTrack.put(mTargets[index], last);
+            }
+
+            final int slot = Integer.numberOfTrailingZeros(mProperties[index]);
+            mAllPrevInTrack[index] = last[slot];
+            last[slot] = index;
+            mMaxDuration = Math.max(mMaxDuration, mDurations[index]);
+        }
+
+        // Until the first diff, every segment is live.
+        System.arraycopy(mAllPrevInTrack, 0, mPrevInTrack, 0, mCount);
+        buildLiveIndex();
+
+        // Order the cues by time. The bits of a non negative float sort in the same order as the
+        // float itself, so cues are packed and sorted the same way.
+        long[] cueKeys = new long[mCueCount];
+        for(int i=0; i < mCueCount; i++) {
+            cueKeys[i] = ((long) Float.floatToIntBits(mCueTimes[i]) << 32) | i;
+        }
+
+        Arrays.sort(cueKeys);
+
+        float[] cueTimes = mCueTimes.clone();
+        Runnable[] cueActions = mCueActions.clone();
+        for(int i=0; i < mCueCount; i++) {
+            final int index = (int) cueKeys[i];
+            mCueTimes[i] = cueTimes[index];
+            mCueActions[i] = cueActions[index];
+        }
+    }
+
+    /**
+     * Captures the value each track animates from, and drops the segments which would leave their
+     * target unchanged. The first segment of a track animates from the target's current value,
+     * and every other segment animates from the end of the previous one. The current values are
+     * read in a single pass over the packed segments, without allocating.
+     */
+    void diff() {
+        diff(null);
+    }
+
+    /**
+     * Captures the value each track animates from, as diff() does, except that tracks held by a
+     * released timeline animate from the values they started from then.
+     * @param starts The start values of a released timeline, or null to read every track's start
+     *               value from its target.
+     */
+    void diff(StartValues starts) {
+        final HashMap<AnimationTarget, int[]> restored = starts != null ? starts.buildIndex() : null;
+
+        for(int i=0; i < mCount; i++) {
+            final int index = mAllStartOrder[i];
+            final int prev = mAllPrevInTrack[index];
+            final int track = prev == -1 && restored != null ? findTrack(restored, index) : -1;
+
+            if(mKinds[index] == KIND_COLOR) {
+                if(prev != -1) {
+                    mFromColors[index] = getEndColor(prev);
+                } else if(track != -1 && starts.mColors != null) {
+                    mFromColors[index] = starts.mColors[track];
+                } else {
+                    mFromColors[index] = mTargets[index].getColor(mProperties[index]);
+                }
+
+                mDropped[index] = mFromColors[index] == mColors[index];
+            } else {
+                if(prev != -1) {
+                    mFromValues[index] = getEndValue(prev);
+                } else if(track != -1) {
+                    mFromValues[index] = starts.mValues[track];
+                } else {
+                    mFromValues[index] = mTargets[index].getValue(mProperties[index]);
+                }
+
+                // Paths and keyframes can leave and return to the same value, so are always played.
+                mDropped[index] = mKinds[index] == KIND_VALUE
+                        && Math.abs(mValues[index] - mFromValues[index]) <= DIFF_EPSILON;
+            }
+
+            // Link past dropped segments. Segments are visited in start order, so the previous
+            // segment has already been linked.
+            mPrevInTrack[index] = prev != -1 && mDropped[prev] ? mPrevInTrack[prev] : prev;
+        }
+
+        buildLiveIndex();
+    }
+
+    /**
+     * @param tracks The tracks of a released timeline, from StartValues.buildIndex().
+     * @param index The segment index.
+     * @return The released track animating the same property of the same target, or -1.
+     */
+    private int findTrack(HashMap<AnimationTarget, int[]> tracks, int index) {
+        final int[] slots = tracks.get(mTargets[index]);
+        return slots != null ? slots[Integer.numberOfTrailingZeros(mProperties[index])] : -1;
+    }
+
+    /**
+     * @return The value each track animated from as of the last diff, to restore to the timeline
+     * rebuilt once this one is released.
+     */
+    StartValues getStartValues() {
+        int count = 0;
+        for(int i=0; i < mCount; i++) {
+            if(mAllPrevInTrack[i] == -1) {
+                count++;
+            }
+        }
+
+        StartValues starts = new StartValues(count, mColors != null);
+        int track = 0;
+        for(int i=0; i < mCount; i++) {
+            if(mAllPrevInTrack[i] == -1) {
+                starts.mTargets[track] = mTargets[i];
+                starts.mProperties[track] = mProperties[i];
+                starts.mValues[track] = mFromValues[i];
+                if(mColors != null) {
+                    starts.mColors[track] = mFromColors[i];
+                }
+                track++;
+            }
+        }
+
+        return starts;
+    }
+
+    /**
+     * @param index The segment index.
+     * @return The value the segment leaves its target at. Dropped segments leave the value they
+     * started from.
+     */
+    private float getEndValue(int index) {
+        return mDropped[index] ? mFromValues[index] : mValues[index];
+    }
+
+    /**
+     * @param index The segment index.
+     * @return The color the segment leaves its target at. Dropped segments leave the color they
+     * started from.
+     */
+    private int getEndColor(int index) {
+        return mDropped[index] ? mFromColors[index] : mColors[index];
+    }
+
+    /**
+     * Rebuilds the start and end time indexes and the next track links from the segments which
+     * have not been dropped. The full indexes are already sorted, so this is a single pass.
+     */
+    private void buildLiveIndex() {
+        int count = 0;
+        for(int i=0; i < mCount; i++) {
+            final int index = mAllStartOrder[i];
+            mNextInTrack[index] = -1;
+
+            if(!mDropped[index]) {
+                mStartOrder[count] = index;
+                mSortedStarts[count++] = mStartDelays[index];
+
+                final int prev = mPrevInTrack[index];
+                if(prev != -1) {
+                    mNextInTrack[prev] = index;
+                }
+            }
+        }
+
+        count = 0;
+        for(int i=0; i < mCount; i++) {
+            final int index = mAllEndOrder[i];
+            if(!mDropped[index]) {
+                mEndOrder[count] = index;
+                mSortedEnds[count++] = getEnd(index);
+            }
+        }
+
+        mLiveCount = count;
+    }
+
+    /**
+     * @return The number of segments which will be played, as of the last diff.
+     */
+    int getLiveCount() {
+        return mLiveCount;
+    }
+
+    /**
+     * @param index The segment index.
+     * @return The time the segment finishes at.
+     */
+    int getEnd(int index) {
+        return mStartDelays[index] + mDurations[index];
+    }
+
+    /**
+     * Finds the first position in a sorted time index holding a time greater than the given time.
+     * @param sortedTimes The sorted time index.
+     * @param time The time to search for.
+     * @return The position in the time index.
+     */
+    private int upperBound(int[] sortedTimes, float time) {
+        int low = 0;
+        int high = mLiveCount;
+
+        while(low < high) {
+            final int mid = (low + high) >>> 1;
+            if(sortedTimes[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the first position in the cue index holding a time greater than the given time.
+     * @param time The time to search for.
+     * @return The position in the cue index.
+     */
+    private int cueUpperBound(float time) {
+        int low = 0;
+        int high = mCueCount;
+
+        while(low < high) {
+            final int mid = (low + high) >>> 1;
+            if(mCueTimes[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Finds the position in the end index of the first segment which is still playing, or yet to
+     * play, at the given time. Every position before it holds a finished segment.
+     * @param time The timeline time.
+     * @return The position in the end index.
+     */
+    int firstUnfinished(float time) {
+        return upperBound(mSortedEnds, time);
+    }
+
+    /**
+     * Moves the timeline directly to the given time. Finished tracks have their end state applied
+     * in one pass, only the segments overlapping the time are evaluated, and each track is
+     * written at most once.
+     * @param time The timeline time to move to.
+     * @param restorePending Whether tracks which are yet to start should be reset to their start
+     *                       values. Not needed when the start values were just captured.
+     */
+    void seek(float time, boolean restorePending) {
+        clearActive();
+
+        // Cues are skipped over when seeking.
+        mCueCursor = cueUpperBound(time);
+
+        // Finished segments only need writing if no later segment of the track has started.
+        final int firstUnfinished = firstUnfinished(time);
+        for(int i=0; i < firstUnfinished; i++) {
+            final int index = mEndOrder[i];
+            final int next = mNextInTrack[index];
+            if(next == -1 || mStartDelays[next] > time) {
+                writeEnd(index);
+            }
+        }
+
+        // Active segments can only have started within the longest duration of the time.
+        final int firstPending = upperBound(mSortedStarts, time);
+        for(int i=upperBound(mSortedStarts, time - mMaxDuration); i < firstPending; i++) {
+            final int index = mStartOrder[i];
+            if(getEnd(index) > time) {
+                activate(index);
+            }
+        }
+
+        if(restorePending) {
+            for(int i=firstPending; i < mLiveCount; i++) {
+                final int index = mStartOrder[i];
+                if(mPrevInTrack[index] == -1) {
+                    writeStart(index);
+                }
+            }
+        }
+
+        evaluateActive(time);
+    }
+
+    /**
+     * Moves the timeline from one time to another, only touching the segments which start, end or
+     * are active between the two times. Works in either direction. Cues passed on the way are run
+     * in the order they are passed, including any cue at the time moved to.
+     * @param from The timeline time last evaluated.
+     * @param to The timeline time to move to.
+     */
+    void step(float from, float to) {
+        if(to >= from) {
+            // Segments which start within the step, and are still running at the end of it.
+            final int lastStarted = upperBound(mSortedStarts, to);
+            for(int i=upperBound(mSortedStarts, from); i < lastStarted; i++) {
+                final int index = mStartOrder[i];
+                if(getEnd(index) > to) {
+                    activate(index);
+                }
+            }
+
+            // Segments which end within the step, unless a later segment of the track started.
+            final int lastEnded = upperBound(mSortedEnds, to);
+            for(int i=upperBound(mSortedEnds, from); i < lastEnded; i++) {
+                final int index = mEndOrder[i];
+                final int next = mNextInTrack[index];
+                if(next == -1 || mStartDelays[next] > to) {
+                    writeEnd(index);
+                }
+            }
+        } else {
+            // Segments which ended within the step, and had started before the end of it.
+            final int lastEnded = upperBound(mSortedEnds, from);
+            for(int i=upperBound(mSortedEnds, to); i < lastEnded; i++) {
+                final int index = mEndOrder[i];
+                if(mStartDelays[index] <= to) {
+                    activate(index);
+                }
+            }
+
+            // Segments which started within the step are rewound, latest first, unless an
+            // earlier segment of the track is still running.
+            final int firstStarted = upperBound(mSortedStarts, to);
+            for(int i=upperBound(mSortedStarts, from) - 1; i >= firstStarted; i--) {
+                final int index = mStartOrder[i];
+                final int prev = mPrevInTrack[index];
+                if(prev == -1 || getEnd(prev) <= to) {
+                    writeStart(index);
+                }
+            }
+        }
+
+        evaluateActive(to);
+        runCues(from, to);
+    }
+
+    /**
+     * Runs the cues passed when moving from one time to another, advancing the cue cursor. The
+     * cursor only moves past the cues crossed, so this is constant time for most frames.
+     * @param from The timeline time last evaluated.
+     * @param to The timeline time moved to.
+     */
+    private void runCues(float from, float to) {
+        if(to >= from) {
+            while(mCueCursor < mCueCount && mCueTimes[mCueCursor] <= to) {
+                mCueActions[mCueCursor++].run();
+            }
+        } else {
+            // Cues at the starting time were run on the way in, so only those before it run.
+            while(mCueCursor > 0 && mCueTimes[mCueCursor - 1] >= to) {
+                mCueCursor--;
+                if(mCueTimes[mCueCursor] < from) {
+                    mCueActions[mCueCursor].run();
+                }
+            }
+
+            // Keep the cursor after any cues at the time moved to.
+            while(mCueCursor < mCueCount && mCueTimes[mCueCursor] <= to) {
+                mCueCursor++;
+            }
+        }
+    }
+
+    /**
+     * Runs the cues placed exactly at a time, such as the time playback starts from.
+     * @param time The timeline time.
+     */
+    void runCuesAt(float time) {
+        for(int i=cueUpperBound(time) - 1; i >= 0 && mCueTimes[i] == time; i--) {
+            mCueActions[i].run();
+        }
+    }
+
+    /**
+     * Writes the current value of every active segment, dropping segments which are no longer
+     * active at the given time.
+     * @param time The timeline time.
+     */
+    private void evaluateActive(float time) {
+        int count = 0;
+
+        for(int i=0; i < mActiveCount; i++) {
+            final int index = mActive[i];
+            final int startDelay = mStartDelays[index];
+
+            if(time < startDelay || time >= startDelay + mDurations[index]) {
+                mIsActive[index] = false;
+                continue;
+            }
+
+            writeFraction(index, (time - startDelay) / mDurations[index]);
+            mActive[count++] = index;
+        }
+
+        mActiveCount = count;
+    }
+
+    /**
+     * Writes the value a segment animates from.
+     * @param index The segment index.
+     */
+    private void writeStart(int index) {
+        if(mKinds[index] == KIND_COLOR) {
+            mTargets[index].setColor(mProperties[index], mFromColors[index]);
+        } else {
+            mTargets[index].setValue(mProperties[index], mFromValues[index]);
+        }
+    }
+
+    /**
+     * Writes the value a segment animates to.
+     * @param index The segment index.
+     */
+    private void writeEnd(int index) {
+        if(mKinds[index] == KIND_COLOR) {
+            mTargets[index].setColor(mProperties[index], mColors[index]);
+        } else {
+            mTargets[index].setValue(mProperties[index], mValues[index]);
+        }
+    }
+
+    /**
+     * Writes the value of a segment part way through.
+     * @param index The segment index.
+     * @param linearFraction The linear fraction of the segment. Keyframe tracks ease each step
+     *                       between keyframes, every other segment is eased as a whole.
+     */
+    private void writeFraction(int index, float linearFraction) {
+        if(mKinds[index] == KIND_KEYFRAMES) {
+            final float time = linearFraction * mDurations[index];
+            final int cursor = mKeyframes[index].seek(mKeyframeCursors[index], time);
+            mKeyframeCursors[index] = cursor;
+            mTargets[index].setValue(mProperties[index], mKeyframes[index].getValue(cursor, time));
+            return;
+        }
+
+        final float fraction = interpolate(linearFraction);
+        switch (mKinds[index]) {
+            case KIND_PATH_X:
+                mTargets[index].setValue(mProperties[index], mPaths[index].getX(fraction));
+                break;
+            case KIND_PATH_Y:
+                mTargets[index].setValue(mProperties[index], mPaths[index].getY(fraction));
+                break;
+            case KIND_COLOR:
+                mTargets[index].setColor(mProperties[index],
+                        blendColors(mFromColors[index], mColors[index], fraction));
+                break;
+            default:
+                final float from = mFromValues[index];
+                mTargets[index].setValue(mProperties[index], from + (mValues[index] - from) * fraction);
+                break;
+        }
+    }
+
+    /**
+     * Blends two packed ARGB colors, channel by channel.
+     * @param from The color at a fraction of 0.
+     * @param to The color at a fraction of 1.
+     * @param fraction The fraction between the colors.
+     * @return The blended color.
+     */
+    static int blendColors(int from, int to, float fraction) {
+        final int a = blendChannel(from >>> 24, to >>> 24, fraction);
+        final int r = blendChannel((from >> 16) & 0xff, (to >> 16) & 0xff, fraction);
+        final int g = blendChannel((from >> 8) & 0xff, (to >> 8) & 0xff, fraction);
+        final int b = blendChannel(from & 0xff, to & 0xff, fraction);
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * @param from The channel value at a fraction of 0.
+     * @param to The channel value at a fraction of 1.
+     * @param fraction The fraction between the values.
+     * @return The blended channel value.
+     */
+    private static int blendChannel(int from, int to, float fraction) {
+        return from + Math.round((to - from) * fraction);
+    }
+
+    /**
+     * @return The number of segments currently mid animation.
+     */
+    int getActiveCount() {
+        return mActiveCount;
+    }
+
+    /**
+     * Marks a segment as active.
+     * @param index The segment index.
+     */
+    private void activate(int index) {
+        if(!mIsActive[index]) {
+            mIsActive[index] = true;
+            mActive[mActiveCount++] = index;
+        }
+    }
+
+    /**
+     * Clears the active segments.
+     */
+    private void clearActive() {
+        for(int i=0; i < mActiveCount; i++) {
+            mIsActive[mActive[i]] = false;
+        }
+
+        mActiveCount = 0;
+    }
+
+    /**
+     * The accelerate / decelerate curve, matching the default curve used by view animations.
+     * @param fraction The linear fraction of the segment.
+     * @return The eased fraction of the segment.
+     */
+    static float interpolate(float fraction) {
+        return (float) (Math.cos((fraction + 1) * Math.PI) / 2.0) + 0.5f;
+    }
+}
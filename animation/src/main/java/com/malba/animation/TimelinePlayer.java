@@ -0,0 +1,428 @@
+package com.malba.animation;
+
+import android.animation.TimeInterpolator;
+
+/**
+ * Plays a Timeline from a single FrameClock, stepping every segment of the group from the same
+ * clock. The clock is scaled by the playback rate and the duration scale, updates can be
+ * throttled to a minimum frame interval, and the timeline can be repeated or played back and
+ * forth, all without rebuilding the timeline or the clock. The playback policy is read again
+ * periodically while playing, so long running groups follow changes in the system state.
+ *
+ * The clock can also be retimed, by a uniform time scale or by a warp curve which maps the
+ * group's clock on to the timeline. Both are applied as the timeline is evaluated, so retiming
+ * never touches the timeline itself.
+ */
+final class TimelinePlayer implements FrameClock.Callback {
+    // The clock time between reads of the playback policy, in milliseconds.
+    static final long POLICY_REFRESH_INTERVAL = 1000;
+
+    // The clock driving playback.
+    private final FrameClock mClock;
+
+    // The timeline being played.
+    private Timeline mTimeline;
+
+    // The start values of a released timeline, restored when it is rebuilt.
+    private Timeline.StartValues mReleasedStarts;
+
+    // The length of the timeline being played.
+    private int mLength;
+
+    // Multiplier applied to the clock. Negative rates play the timeline backwards.
+    private float mPlaybackRate = 1;
+
+    // The number of times the timeline repeats after the first play, or INFINITE.
+    private int mRepeatCount = 0;
+
+    // How the timeline repeats, either restarting or reversing.
+    private int mRepeatMode = GroupAnimator.REPEAT_RESTART;
+
+    // The cycle currently playing, and the forward progress through it.
+    private int mCycle;
+    private float mCycleTime;
+
+    // The timeline time last evaluated.
+    private float mTime;
+
+    // The policy playback is scaled and throttled by, and the priority it is read for.
+    private PlaybackPolicy mPolicy = PlaybackPolicy.UNMANAGED;
+    private int mPriority = PlaybackPolicy.PRIORITY_DEFAULT;
+
+    // Clock time since the policy was last read.
+    private long mPolicyAge;
+
+    // The system animator duration scale.
+    private float mDurationScale = 1;
+
+    // Multiplier applied to the length of the timeline, on top of the duration scale.
+    private float mTimeScale = 1;
+
+    // Maps the fraction of a cycle played to a fraction of the timeline, or null to play evenly.
+    private TimeInterpolator mTimeWarp;
+
+    // The minimum clock time between updates.
+    private long mFrameInterval;
+
+    // Clock time which has passed, but not yet been applied to the timeline.
+    private long mPendingTime;
+
+    // Whether anything has been played yet.
+    private boolean mStarted;
+
+    // Whether playback has been paused.
+    private boolean mPaused;
+
+    /**
+     * @param clock The clock to drive playback from.
+     */
+    TimelinePlayer(FrameClock clock) {
+        mClock = clock;
+        mClock.setCallback(this);
+    }
+
+    /**
+     * Starts playing a timeline, in the direction of the playback rate.
+     * @param timeline The timeline to play.
+     * @param length The length of the timeline.
+     * @param startTime The time to start at, before any time warp is applied.
+     * @param policy The policy to scale and throttle playback by.
+     * @param priority The priority of the group, for throttling.
+     */
+    void start(Timeline timeline, int length, float startTime, PlaybackPolicy policy, int priority) {
+        mClock.cancel();
+
+        mTimeline = timeline;
+        mReleasedStarts = null;
+        mLength = length;
+        mStarted = true;
+        mPaused = false;
+
+        // Playing backwards starts from the last cycle.
+        mCycle = mPlaybackRate < 0 && mRepeatCount != GroupAnimator.INFINITE ? mRepeatCount : 0;
+        mCycleTime = isReversedCycle(mCycle) ? length - startTime : startTime;
+        mTime = getLocalTime(mCycle, mCycleTime);
+
+        timeline.diff();
+        timeline.seek(mTime, false);
+        timeline.runCuesAt(mTime);
+        play(policy, priority);
+    }
+
+    /**
+     * Pauses playback, leaving every view at its current value.
+     */
+    void pause() {
+        if(mClock.isStarted()) {
+            mClock.cancel();
+            mPaused = true;
+        }
+    }
+
+    /**
+     * Resumes playback from the current position, in the direction of the playback rate. This
+     * also continues playback which has finished, if the playback rate has since been reversed.
+     * @param policy The policy to scale and throttle playback by.
+     * @param priority The priority of the group, for throttling.
+     */
+    void resume(PlaybackPolicy policy, int priority) {
+        if(mStarted && !mClock.isStarted()) {
+            mPaused = false;
+            play(policy, priority);
+        }
+    }
+
+    /**
+     * Stops playback, leaving every view at its current value.
+     */
+    void cancel() {
+        mClock.cancel();
+        mPaused = false;
+    }
+
+    /**
+     * Drops the reference to the timeline, so it can be collected. Only the value each track
+     * started from is kept, so playback can resume once the timeline is restored.
+     */
+    void release() {
+        mClock.cancel();
+
+        if(mStarted && mTimeline != null) {
+            mReleasedStarts = mTimeline.getStartValues();
+        }
+        mTimeline = null;
+    }
+
+    /**
+     * Replaces a released timeline with one rebuilt for the same group, at the same point in
+     * playback. Tracks the released timeline held animate from the values they started from
+     * then, rather than from where playback left them. Cues are not run.
+     * @param timeline The rebuilt timeline.
+     * @param length The length of the rebuilt timeline.
+     */
+    void restore(Timeline timeline, int length) {
+        mTimeline = timeline;
+        mLength = length;
+        mCycleTime = Math.min(mCycleTime, length);
+        mTime = getLocalTime(mCycle, mCycleTime);
+
+        timeline.diff(mReleasedStarts);
+        mReleasedStarts = null;
+        timeline.seek(mTime, true);
+    }
+
+    /**
+     * @return The number of track start values kept for a released timeline.
+     */
+    int getReleasedStartCount() {
+        return mReleasedStarts != null ? mReleasedStarts.mCount : 0;
+    }
+
+    /**
+     * Starts the clock from the current position. A duration scale of 0 jumps straight to the
+     * end of playback, without starting the clock.
+     * @param policy The policy to scale and throttle playback by.
+     * @param priority The priority of the group, for throttling.
+     */
+    private void play(PlaybackPolicy policy, int priority) {
+        mPolicy = policy;
+        mPriority = priority;
+        mDurationScale = policy.getDurationScale();
+        mFrameInterval = policy.getFrameInterval(priority);
+        mPolicyAge = 0;
+        mPendingTime = 0;
+
+        if(mDurationScale <= 0 || mLength == 0) {
+            final int cycle = mCycle;
+            if(mPlaybackRate >= 0) {
+                mCycle = mRepeatCount == GroupAnimator.INFINITE ? mCycle : mRepeatCount;
+                mCycleTime = mLength;
+            } else {
+                mCycle = 0;
+                mCycleTime = 0;
+            }
+
+            // Within the same cycle, step so the cues passed on the way still run.
+            if(mCycle == cycle) {
+                moveTo(getLocalTime(mCycle, mCycleTime));
+            } else {
+                mTime = getLocalTime(mCycle, mCycleTime);
+                mTimeline.seek(mTime, true);
+            }
+            return;
+        }
+
+        // Groups which are only ever played nested can share a clock, so claim it when playing.
+        if(getRemainingTime() > 0) {
+            mClock.setCallback(this);
+            mClock.start();
+        }
+    }
+
+    /**
+     * @return The timeline time last evaluated.
+     */
+    float getTime() {
+        return mTime;
+    }
+
+    /**
+     * @return The time played through the current cycle, before any time warp is applied.
+     */
+    float getClockTime() {
+        return isReversedCycle(mCycle) ? mLength - mCycleTime : mCycleTime;
+    }
+
+    /**
+     * @return Whether anything has been played yet.
+     */
+    boolean hasStarted() {
+        return mStarted;
+    }
+
+    /**
+     * @return Whether the clock is running.
+     */
+    boolean isRunning() {
+        return mClock.isStarted();
+    }
+
+    /**
+     * @return Whether playback has been paused.
+     */
+    boolean isPaused() {
+        return mPaused;
+    }
+
+    /**
+     * @param rate Multiplier applied to the clock. Negative rates play the timeline backwards.
+     */
+    void setPlaybackRate(float rate) {
+        mPlaybackRate = rate;
+    }
+
+    /**
+     * @return Multiplier applied to the clock.
+     */
+    float getPlaybackRate() {
+        return mPlaybackRate;
+    }
+
+    /**
+     * @param timeScale Multiplier applied to the length of the timeline. Must be positive.
+     */
+    void setTimeScale(float timeScale) {
+        mTimeScale = timeScale;
+    }
+
+    /**
+     * @return Multiplier applied to the length of the timeline.
+     */
+    float getTimeScale() {
+        return mTimeScale;
+    }
+
+    /**
+     * @param timeWarp Maps the fraction of a cycle played to a fraction of the timeline, or null
+     *                 to play evenly.
+     */
+    void setTimeWarp(TimeInterpolator timeWarp) {
+        mTimeWarp = timeWarp;
+    }
+
+    /**
+     * @param repeatCount The number of times the timeline repeats after the first play, or
+     *                    INFINITE.
+     * @param repeatMode How the timeline repeats, either restarting or reversing.
+     */
+    void setRepeat(int repeatCount, int repeatMode) {
+        mRepeatCount = repeatCount;
+        mRepeatMode = repeatMode;
+    }
+
+    /**
+     * @param priority The priority of the group, for throttling. Applied from the next policy read.
+     */
+    void setPriority(int priority) {
+        mPriority = priority;
+    }
+
+    @Override
+    public void onFrame(long deltaTime) {
+        // Battery saver and thermal state can change at any time, so follow them while playing.
+        mPolicyAge += deltaTime;
+        if(mPolicyAge >= POLICY_REFRESH_INTERVAL) {
+            mPolicyAge = 0;
+            mFrameInterval = mPolicy.getFrameInterval(mPriority);
+
+            // Animations turned off part way through finish at their current speed.
+            final float durationScale = mPolicy.getDurationScale();
+            if(durationScale > 0) {
+                mDurationScale = durationScale;
+            }
+        }
+
+        mPendingTime += deltaTime;
+        final float delta = mPendingTime * mPlaybackRate / (mDurationScale * mTimeScale);
+
+        // Skip the update if throttled, unless this is the final frame.
+        if(mPendingTime < mFrameInterval && Math.abs(delta) < getRemainingTime()) {
+            return;
+        }
+
+        mPendingTime = 0;
+        if(advance(delta)) {
+            mClock.cancel();
+        }
+    }
+
+    /**
+     * Advances the timeline, crossing into other cycles as needed.
+     * @param delta The amount of forward cycle time to advance by. Negative to move backwards.
+     * @return Whether playback has reached its end, in the direction of travel.
+     */
+    private boolean advance(float delta) {
+        final boolean infinite = mRepeatCount == GroupAnimator.INFINITE;
+        float cycleTime = mCycleTime + delta;
+
+        while(cycleTime > mLength && (infinite || mCycle < mRepeatCount)) {
+            moveTo(getLocalTime(mCycle, mLength));
+            mCycle++;
+            cycleTime -= mLength;
+            enter(getLocalTime(mCycle, 0));
+        }
+
+        while(cycleTime < 0 && mCycle > 0) {
+            moveTo(getLocalTime(mCycle, 0));
+            mCycle--;
+            cycleTime += mLength;
+            enter(getLocalTime(mCycle, mLength));
+        }
+
+        mCycleTime = Math.max(0, Math.min(mLength, cycleTime));
+        moveTo(getLocalTime(mCycle, mCycleTime));
+
+        return getRemainingTime() <= 0;
+    }
+
+    /**
+     * @return The forward cycle time left to play, in the direction of the playback rate.
+     */
+    private float getRemainingTime() {
+        if(mPlaybackRate < 0) {
+            return mCycle * (float) mLength + mCycleTime;
+        }
+
+        if(mRepeatCount == GroupAnimator.INFINITE) {
+            return Float.MAX_VALUE;
+        }
+
+        return (mRepeatCount - mCycle) * (float) mLength + mLength - mCycleTime;
+    }
+
+    /**
+     * @param cycle The cycle.
+     * @return Whether the cycle plays the timeline backwards.
+     */
+    private boolean isReversedCycle(int cycle) {
+        return mRepeatMode == GroupAnimator.REPEAT_REVERSE && (cycle & 1) == 1;
+    }
+
+    /**
+     * @param cycle The cycle.
+     * @param cycleTime The forward progress through the cycle.
+     * @return The matching timeline time.
+     */
+    private float getLocalTime(int cycle, float cycleTime) {
+        final float time = isReversedCycle(cycle) ? mLength - cycleTime : cycleTime;
+        if(mTimeWarp == null || mLength == 0) {
+            return time;
+        }
+
+        // Reversed cycles play the same warp backwards.
+        final float warped = mTimeWarp.getInterpolation(time / mLength) * mLength;
+        return Math.max(0, Math.min(mLength, warped));
+    }
+
+    /**
+     * Moves the timeline continuously to a time.
+     * @param time The timeline time.
+     */
+    private void moveTo(float time) {
+        mTimeline.step(mTime, time);
+        mTime = time;
+    }
+
+    /**
+     * Jumps the timeline to a time at the edge of a cycle, if it isn't there already. Cues at the
+     * edge are run, as the new cycle starts from them.
+     * @param time The timeline time.
+     */
+    private void enter(float time) {
+        if(time != mTime) {
+            mTimeline.seek(time, true);
+            mTimeline.runCuesAt(time);
+            mTime = time;
+        }
+    }
+}
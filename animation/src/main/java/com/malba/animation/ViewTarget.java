@@ -0,0 +1,157 @@
+package com.malba.animation;
+
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+/**
+ * Animation target which applies values directly to a view's properties. Targets wrapping the
+ * same view are equal, so a view can be registered through separate targets.
+ */
+final class ViewTarget implements AnimationTarget {
+    // The view being animated.
+    final View mView;
+
+    /**
+     * @param view The view to animate.
+     */
+    ViewTarget(View view) {
+        mView = view;
+    }
+
+    /**
+     * Gets the value for a particular animatable property.
+     * @param propertyConstant The property being fetched.
+     * @return The value of the property being fetched.
+     */
+    @Override
+    public float getValue(int propertyConstant) {
+        switch (propertyConstant) {
+            case GroupAnimator.TRANSLATION_X:
+                return mView.getTranslationX();
+            case GroupAnimator.TRANSLATION_Y:
+                return mView.getTranslationY();
+            case GroupAnimator.TRANSLATION_Z:
+                return mView.getTranslationZ();
+            case GroupAnimator.ROTATION:
+                return mView.getRotation();
+            case GroupAnimator.ROTATION_X:
+                return mView.getRotationX();
+            case GroupAnimator.ROTATION_Y:
+                return mView.getRotationY();
+            case GroupAnimator.SCALE_X:
+                return mView.getScaleX();
+            case GroupAnimator.SCALE_Y:
+                return mView.getScaleY();
+            case GroupAnimator.X:
+                return mView.getLeft() + mView.getTranslationX();
+            case GroupAnimator.Y:
+                return mView.getTop() + mView.getTranslationY();
+            case GroupAnimator.Z:
+                return mView.getElevation() + mView.getTranslationZ();
+            case GroupAnimator.ALPHA:
+                return mView.getAlpha();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Sets the value for a particular animatable property, without animating.
+     * @param propertyConstant The property being set.
+     * @param value The value to set.
+     */
+    @Override
+    public void setValue(int propertyConstant, float value) {
+        switch (propertyConstant) {
+            case GroupAnimator.TRANSLATION_X:
+                mView.setTranslationX(value);
+                break;
+            case GroupAnimator.TRANSLATION_Y:
+                mView.setTranslationY(value);
+                break;
+            case GroupAnimator.TRANSLATION_Z:
+                mView.setTranslationZ(value);
+                break;
+            case GroupAnimator.ROTATION:
+                mView.setRotation(value);
+                break;
+            case GroupAnimator.ROTATION_X:
+                mView.setRotationX(value);
+                break;
+            case GroupAnimator.ROTATION_Y:
+                mView.setRotationY(value);
+                break;
+            case GroupAnimator.SCALE_X:
+                mView.setScaleX(value);
+                break;
+            case GroupAnimator.SCALE_Y:
+                mView.setScaleY(value);
+                break;
+            case GroupAnimator.X:
+                mView.setX(value);
+                break;
+            case GroupAnimator.Y:
+                mView.setY(value);
+                break;
+            case GroupAnimator.Z:
+                mView.setZ(value);
+                break;
+            case GroupAnimator.ALPHA:
+                mView.setAlpha(value);
+                break;
+        }
+    }
+
+    /**
+     * Gets the value for a particular animatable color property.
+     * @param propertyConstant The property being fetched.
+     * @return The packed ARGB color of the property being fetched.
+     */
+    @Override
+    public int getColor(int propertyConstant) {
+        switch (propertyConstant) {
+            case GroupAnimator.BACKGROUND_COLOR:
+                // Only plain color backgrounds have a color to animate from.
+                Drawable background = mView.getBackground();
+                if(background instanceof ColorDrawable) {
+                    return ((ColorDrawable) background).getColor();
+                }
+                break;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Sets the value for a particular animatable color property, without animating.
+     * @param propertyConstant The property being set.
+     * @param color The packed ARGB color to set.
+     */
+    @Override
+    public void setColor(int propertyConstant, int color) {
+        switch (propertyConstant) {
+            case GroupAnimator.BACKGROUND_COLOR:
+                mView.setBackgroundColor(color);
+                break;
+        }
+    }
+
+    /**
+     * @return The shared policy, from the view's context.
+     */
+    @Override
+    public PlaybackPolicy getPlaybackPolicy() {
+        return PlaybackPolicy.getDefault(mView.getContext());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ViewTarget && ((ViewTarget) other).mView == mView;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(mView);
+    }
+}
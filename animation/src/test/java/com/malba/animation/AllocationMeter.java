@@ -0,0 +1,51 @@
+package com.malba.animation;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap allocated by the current thread, using the HotSpot thread MXBean.
+ */
+final class AllocationMeter {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = getThreadBean();
+
+    private final long mThreadId = Thread.currentThread().getId();
+    private final long mOverhead;
+    private long mStart;
+
+    AllocationMeter() {
+        // Measure the cost of taking a measurement, so it can be removed from the results.
+        start();
+        mOverhead = stop();
+    }
+
+    /**
+     * @return Whether allocations can be measured on this runtime.
+     */
+    static boolean isSupported() {
+        return THREAD_BEAN != null && THREAD_BEAN.isThreadAllocatedMemorySupported()
+                && THREAD_BEAN.isThreadAllocatedMemoryEnabled();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        try {
+            return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        } catch (ClassCastException | NoClassDefFoundError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts a measurement.
+     */
+    void start() {
+        mStart = THREAD_BEAN.getThreadAllocatedBytes(mThreadId);
+    }
+
+    /**
+     * @return The bytes allocated since the measurement was started.
+     */
+    long stop() {
+        final long allocated = THREAD_BEAN.getThreadAllocatedBytes(mThreadId) - mStart;
+        return Math.max(0, allocated - mOverhead);
+    }
+}
@@ -0,0 +1,96 @@
+package com.malba.animation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Behaviour of groups blended through an AnimationBlender.
+ */
+public class AnimationBlenderTest {
+    private static final int TARGET_COUNT = 100;
+
+    private VirtualFrameClock mClock;
+    private RecordingTarget[] mTargets;
+    private AnimationBlender mBlender;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualFrameClock();
+        mTargets = Playback.newTargets(TARGET_COUNT);
+        mBlender = new AnimationBlender(mClock);
+    }
+
+    @Test
+    public void blendedGroupsWriteEachPropertyOnce() {
+        GroupAnimator entrance = new GroupAnimator(mBlender);
+        GroupAnimator hover = new GroupAnimator(mBlender).withWeight(0.5f);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            entrance.withTarget(mTargets[i]).translationX(100, 300, 0);
+            hover.withTarget(mTargets[i]).translationX(40, 300, 100);
+        }
+
+        // Both groups start from the same value, and overlap part way through.
+        entrance.start();
+        hover.start();
+
+        assertEquals(1, Playback.playToEnd(mClock, mTargets, entrance, hover));
+
+        // Each group adds its weighted change, rather than overwriting the other.
+        for(RecordingTarget target : mTargets) {
+            assertEquals(120f, target.getValue(GroupAnimator.TRANSLATION_X), 0.001f);
+        }
+    }
+
+    @Test
+    public void finishedLayersAreReleased() {
+        GroupAnimator entrance = new GroupAnimator(mBlender);
+        GroupAnimator hover = new GroupAnimator(mBlender);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            entrance.withTarget(mTargets[i]).translationX(100, 300, 0);
+            hover.withTarget(mTargets[i]).alpha(0.5f, 300, 0);
+        }
+
+        entrance.start();
+        hover.start();
+        Playback.frames(mClock, 5);
+        assertEquals(2, mBlender.getLayerClockCount());
+        assertEquals(TARGET_COUNT, mBlender.getAccumulatorCount());
+
+        // A cancelled layer is dropped straight away, and a finished one after its last frame.
+        hover.cancel();
+        assertEquals(1, mBlender.getLayerClockCount());
+
+        Playback.playToEnd(mClock, mTargets, entrance);
+        assertEquals(0, mBlender.getLayerClockCount());
+        assertEquals(0, mBlender.getAccumulatorCount());
+        assertFalse(mClock.isStarted());
+    }
+
+    @Test
+    public void restartedLayerStartsFromExternalWrites() {
+        GroupAnimator entrance = new GroupAnimator(mBlender);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            entrance.withTarget(mTargets[i]).translationX(100, 300, 0);
+        }
+
+        entrance.start();
+        Playback.playToEnd(mClock, mTargets, entrance);
+
+        // Moved back elsewhere, so the layer has to animate the whole way again.
+        for(RecordingTarget target : mTargets) {
+            target.setValue(GroupAnimator.TRANSLATION_X, 0);
+        }
+
+        entrance.start();
+        Playback.frames(mClock, 5);
+        final float partWay = mTargets[0].getValue(GroupAnimator.TRANSLATION_X);
+        assertTrue(partWay > 0 && partWay < 100);
+
+        Playback.playToEnd(mClock, mTargets, entrance);
+        for(RecordingTarget target : mTargets) {
+            assertEquals(100f, target.getValue(GroupAnimator.TRANSLATION_X), 0.001f);
+        }
+    }
+}
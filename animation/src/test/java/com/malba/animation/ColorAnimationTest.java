@@ -0,0 +1,61 @@
+package com.malba.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Behaviour of packed ARGB color animations.
+ */
+public class ColorAnimationTest {
+    private static final int RED = 0xffff0000;
+    private static final int BLUE = 0xff0000ff;
+
+    @Test
+    public void colorsBlendChannelByChannel() {
+        assertEquals(0x00000000, Timeline.blendColors(0x00000000, 0xffffffff, 0));
+        assertEquals(0xffffffff, Timeline.blendColors(0x00000000, 0xffffffff, 1));
+        assertEquals(0x80808080, Timeline.blendColors(0x00000000, 0xffffffff, 0.5f));
+
+        // Channels are blended separately, without carrying between them.
+        assertEquals(0xff800080, Timeline.blendColors(RED, BLUE, 0.5f));
+        assertEquals(0x40ff0000, Timeline.blendColors(0x00ff0000, RED, 0.25f));
+    }
+
+    @Test
+    public void colorsPlayInSequenceWritingOnce() {
+        VirtualFrameClock clock = new VirtualFrameClock();
+        RecordingTarget[] targets = Playback.newTargets(1);
+        GroupAnimator group = Playback.newGroup(clock);
+        group.withTarget(targets[0])
+                .backgroundColor(RED, 300, 0)
+                .backgroundColor(BLUE, 300, 300);
+
+        group.start();
+        Playback.frames(clock, 10);
+
+        // Part way to red, from transparent black.
+        final int partWay = targets[0].getColor(GroupAnimator.BACKGROUND_COLOR);
+        assertTrue((partWay >>> 24) > 0 && (partWay >>> 24) < 0xff);
+        assertEquals(0, partWay & 0xff);
+
+        assertEquals(1, Playback.playToEnd(clock, targets, group));
+        assertEquals(BLUE, targets[0].getColor(GroupAnimator.BACKGROUND_COLOR));
+    }
+
+    @Test
+    public void unchangedColorsAreNotWritten() {
+        VirtualFrameClock clock = new VirtualFrameClock();
+        RecordingTarget[] targets = Playback.newTargets(1);
+        targets[0].setColor(GroupAnimator.BACKGROUND_COLOR, RED);
+        final int writes = targets[0].getWriteCount();
+
+        GroupAnimator group = Playback.newGroup(clock);
+        group.withTarget(targets[0]).backgroundColor(RED, 300, 0);
+
+        group.start();
+        Playback.playToEnd(clock, targets, group);
+
+        assertEquals(writes, targets[0].getWriteCount());
+    }
+}
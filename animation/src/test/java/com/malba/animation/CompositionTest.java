@@ -0,0 +1,167 @@
+package com.malba.animation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Behaviour of groups nested within other groups, and flattened into a single timeline.
+ */
+public class CompositionTest {
+    private VirtualFrameClock mClock;
+    private VirtualFrameClock mChildClock;
+    private RecordingTarget[] mTargets;
+    private GroupAnimator mParent;
+    private GroupAnimator mChild;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualFrameClock();
+        mChildClock = new VirtualFrameClock();
+        mTargets = Playback.newTargets(2);
+
+        mParent = Playback.newGroup(mClock);
+        mParent.withTarget(mTargets[0]).translationX(100, 300, 0);
+
+        mChild = Playback.newGroup(mChildClock);
+        mChild.withTarget(mTargets[1]).translationX(100, 100, 0);
+    }
+
+    /**
+     * @param index The target index.
+     * @return The value of the target's animated property.
+     */
+    private float getValue(int index) {
+        return mTargets[index].getValue(GroupAnimator.TRANSLATION_X);
+    }
+
+    @Test
+    public void nestedGroupsPlayFromTheParentClock() {
+        mParent.withGroup(mChild, 0);
+
+        AnimationStats stats = mParent.getStats();
+        assertEquals(2, stats.getGroupCount());
+        assertEquals(2, stats.getSegmentCount());
+        assertEquals(300, mParent.getAnimationLength());
+
+        mParent.start();
+        assertEquals(2, mParent.getStats().getTimelineSegmentCount());
+        assertEquals(1, mClock.getStartCount());
+
+        Playback.playToEnd(mClock, mTargets, mParent);
+        assertEquals(0, mChildClock.getStartCount());
+        assertEquals(100f, getValue(0), 0f);
+        assertEquals(100f, getValue(1), 0f);
+    }
+
+    @Test
+    public void nestedGroupsStartAtTheirOffset() {
+        mParent.withGroup(mChild, 200);
+        assertEquals(300, mParent.getAnimationLength());
+
+        mParent.start();
+        Playback.frames(mClock, 12);
+        assertEquals(0f, getValue(1), 0f);
+
+        Playback.playToEnd(mClock, mTargets, mParent);
+        assertEquals(100f, getValue(1), 0f);
+    }
+
+    @Test
+    public void groupsAddedAfterPlayOnceTheParentEnds() {
+        mParent.withGroupAfter(mChild, 50);
+        assertEquals(450, mParent.getAnimationLength());
+
+        mParent.start();
+        Playback.frames(mClock, 21);
+        assertEquals(100f, getValue(0), 0f);
+        assertEquals(0f, getValue(1), 0f);
+
+        Playback.playToEnd(mClock, mTargets, mParent);
+        assertEquals(100f, getValue(1), 0f);
+    }
+
+    @Test
+    public void groupsNestedTwicePlayAtEachOffset() {
+        // The nested group slides out and back, so each placement moves its target again.
+        mChild.withTarget(mTargets[1]).translationX(0, 100, 100);
+        mParent.withGroup(mChild, 0).withGroup(mChild, 200);
+        assertEquals(400, mParent.getAnimationLength());
+
+        // The nested group is held once, but flattened at both offsets.
+        AnimationStats stats = mParent.getStats();
+        assertEquals(2, stats.getGroupCount());
+        assertEquals(3, stats.getSegmentCount());
+        assertEquals(stats.getRetainedBytes(), mParent.estimateRetainedBytes());
+
+        mParent.start();
+        assertEquals(5, mParent.getStats().getTimelineSegmentCount());
+
+        float firstPeak = 0;
+        float secondPeak = 0;
+        while(mParent.isRunning()) {
+            mClock.frame(Playback.FRAME_TIME);
+            if(mParent.getAnimationPercent() < 0.5f) {
+                firstPeak = Math.max(firstPeak, getValue(1));
+            } else {
+                secondPeak = Math.max(secondPeak, getValue(1));
+            }
+        }
+
+        assertTrue(firstPeak > 90);
+        assertTrue(secondPeak > 90);
+        assertEquals(0f, getValue(1), 0f);
+    }
+
+    @Test
+    public void nestingCyclesAreRejected() {
+        GroupAnimator grandchild = Playback.newGroup(mChildClock);
+        mParent.withGroup(mChild);
+        mChild.withGroup(grandchild);
+
+        try {
+            grandchild.withGroup(mParent);
+            fail("Expected a cycle to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        try {
+            mParent.withGroup(mParent);
+            fail("Expected a group nested in itself to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        assertEquals(3, mParent.getStats().getGroupCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeOffsetsAreRejected() {
+        mParent.withGroup(mChild, -1);
+    }
+
+    @Test
+    public void reversedCompositionsMirrorNestedGroups() {
+        mParent.withGroupAfter(mChild);
+
+        // The reverse returns every target to the values captured when cloning.
+        VirtualFrameClock reverseClock = new VirtualFrameClock();
+        GroupAnimator reverse = mParent.cloneReverse(reverseClock);
+        assertEquals(400, reverse.getAnimationLength());
+        assertEquals(2, reverse.getStats().getGroupCount());
+
+        mParent.start();
+        Playback.playToEnd(mClock, mTargets, mParent);
+
+        // The nested group now plays first, and the parent's own segment after it.
+        reverse.start();
+        Playback.frames(reverseClock, 7);
+        assertTrue(getValue(1) < 100);
+        assertEquals(100f, getValue(0), 0f);
+
+        Playback.playToEnd(reverseClock, mTargets, reverse);
+        assertEquals(0f, getValue(0), 0f);
+        assertEquals(0f, getValue(1), 0f);
+        assertEquals(1, reverseClock.getStartCount());
+    }
+}
@@ -0,0 +1,127 @@
+package com.malba.animation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Order in which cues run, in every direction playback can take.
+ */
+public class CueTest {
+    private VirtualFrameClock mClock;
+    private RecordingTarget mTarget;
+    private List<Integer> mRun;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualFrameClock();
+        mTarget = new RecordingTarget();
+        mRun = new ArrayList<>();
+    }
+
+    /**
+     * @return A 300ms group, with a cue every 100ms from 0 to 300.
+     */
+    private GroupAnimator newCuedGroup() {
+        GroupAnimator group = Playback.newGroup(mClock);
+        group.withTarget(mTarget).translationX(100, 300, 0);
+        for(int time=0; time <= 300; time += 100) {
+            addCue(group, time);
+        }
+
+        return group;
+    }
+
+    /**
+     * @param group The group to add the cue to.
+     * @param time The time of the cue, which is recorded when the cue runs.
+     */
+    private void addCue(GroupAnimator group, final int time) {
+        group.addCue(time, new Runnable() {
+            @Override
+            public void run() {
+                mRun.add(time);
+            }
+        });
+    }
+
+    /**
+     * Plays a group until it finishes.
+     * @param group The group to play.
+     */
+    private void playToEnd(GroupAnimator group) {
+        Playback.playToEnd(mClock, new RecordingTarget[] {mTarget}, group);
+    }
+
+    @Test
+    public void cuesRunInOrderPlayingForwards() {
+        GroupAnimator group = newCuedGroup();
+        group.start();
+        playToEnd(group);
+
+        assertEquals(Arrays.asList(0, 100, 200, 300), mRun);
+    }
+
+    @Test
+    public void cuesRunInReverseOrderPlayingBackwards() {
+        GroupAnimator group = newCuedGroup();
+        group.setPlaybackRate(-1);
+        group.start(1);
+        playToEnd(group);
+
+        assertEquals(Arrays.asList(300, 200, 100, 0), mRun);
+    }
+
+    @Test
+    public void cuesRunBothWaysPlayingBackAndForth() {
+        GroupAnimator group = newCuedGroup().withRepeat(1, GroupAnimator.REPEAT_REVERSE);
+        group.start();
+        playToEnd(group);
+
+        // The cue at the turning point only runs once.
+        assertEquals(Arrays.asList(0, 100, 200, 300, 200, 100, 0), mRun);
+    }
+
+    @Test
+    public void cuesBeforeStartingPointAreSkipped() {
+        GroupAnimator group = newCuedGroup();
+        group.start(0.5f);
+        playToEnd(group);
+
+        assertEquals(Arrays.asList(200, 300), mRun);
+    }
+
+    @Test
+    public void cueOnlyGroupsPlay() {
+        GroupAnimator group = Playback.newGroup(mClock);
+        addCue(group, 0);
+        addCue(group, 500);
+
+        assertEquals(500, group.getAnimationLength());
+
+        group.start();
+        assertTrue(group.isRunning());
+        playToEnd(group);
+
+        assertEquals(Arrays.asList(0, 500), mRun);
+    }
+
+    @Test
+    public void cuesAfterLastAnimationExtendTheGroup() {
+        GroupAnimator group = newCuedGroup();
+        addCue(group, 600);
+
+        assertEquals(600, group.getAnimationLength());
+
+        group.start();
+        playToEnd(group);
+
+        assertEquals(Arrays.asList(0, 100, 200, 300, 600), mRun);
+        assertEquals(100f, mTarget.getValue(GroupAnimator.TRANSLATION_X), 0f);
+    }
+}
@@ -0,0 +1,286 @@
+package com.malba.animation;
+
+import android.view.View;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guards the runtime cost of GroupAnimator playback. Groups are played frame by frame from a
+ * virtual clock against in memory targets, and measured against the limits checked in to
+ * performance-thresholds.properties.
+ */
+public class GroupAnimatorPerformanceTest {
+    private static final int TARGET_COUNT = 500;
+
+    private Properties mThresholds;
+    private VirtualFrameClock mClock;
+    private RecordingTarget[] mTargets;
+    private GroupAnimator mAnimator;
+
+    @Before
+    public void setUp() throws IOException {
+        mThresholds = new Properties();
+        try (InputStream in = getClass().getClassLoader()
+                .getResourceAsStream("performance-thresholds.properties")) {
+            mThresholds.load(in);
+        }
+
+        mClock = new VirtualFrameClock();
+        mTargets = Playback.newTargets(TARGET_COUNT);
+        mAnimator = Playback.newGroup(mClock);
+
+        // Each target slides out and back, fading part way through, staggered across the group.
+        for(int i=0; i < TARGET_COUNT; i++) {
+            mAnimator.withTarget(mTargets[i])
+                    .withTiming(300, i)
+                    .translationX(100)
+                    .alpha(0.5f, 200, i + 100)
+                    .withDurationAfter(300)
+                    .translationX(0);
+        }
+    }
+
+    private long threshold(String key) {
+        return Long.parseLong(mThresholds.getProperty(key));
+    }
+
+    private void frames(int count) {
+        Playback.frames(mClock, count);
+    }
+
+    @Test
+    public void playbackFramesDoNotAllocate() {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+
+        mAnimator.withRepeat(GroupAnimator.INFINITE, GroupAnimator.REPEAT_REVERSE);
+        mAnimator.start();
+        frames(200);
+
+        final int frameCount = 1000;
+        AllocationMeter meter = new AllocationMeter();
+        meter.start();
+        frames(frameCount);
+        final long allocated = meter.stop();
+
+        assertTrue("Allocated " + allocated + " bytes over " + frameCount + " frames",
+                allocated <= threshold("frame.maxAllocatedBytes") * frameCount);
+    }
+
+    @Test
+    public void startReusesClockWithoutAllocating() {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+
+        // The first start builds the timeline, later starts reuse it.
+        mAnimator.start();
+        frames(10);
+        mAnimator.start();
+
+        AllocationMeter meter = new AllocationMeter();
+        final int startCount = mClock.getStartCount();
+        meter.start();
+        mAnimator.start(0.5f);
+        final long allocated = meter.stop();
+
+        assertTrue("Allocated " + allocated + " bytes restarting",
+                allocated <= threshold("start.maxAllocatedBytes"));
+        assertTrue("Started " + (mClock.getStartCount() - startCount) + " clocks",
+                mClock.getStartCount() - startCount <= threshold("start.maxClockStarts"));
+    }
+
+    @Test
+    public void framesWriteEachPropertyOnce() {
+        mAnimator.start();
+        final int maxWrites = Playback.playToEnd(mClock, mTargets, mAnimator);
+
+        assertTrue("Wrote a property " + maxWrites + " times in one frame",
+                maxWrites <= threshold("frame.maxWritesPerProperty"));
+        assertEquals(0f, mTargets[0].getValue(GroupAnimator.TRANSLATION_X), 0f);
+        assertEquals(0.5f, mTargets[0].getValue(GroupAnimator.ALPHA), 0f);
+    }
+
+    @Test
+    public void startPartWayWritesEachPropertyOnce() {
+        mAnimator.start(0.9f);
+
+        int maxWrites = 0;
+        for(RecordingTarget target : mTargets) {
+            maxWrites = Math.max(maxWrites, target.getMaxPropertyWrites());
+        }
+
+        assertTrue("Wrote a property " + maxWrites + " times starting part way",
+                maxWrites <= threshold("seek.maxWritesPerProperty"));
+        assertEquals(0.5f, mTargets[0].getValue(GroupAnimator.ALPHA), 0f);
+    }
+
+    @Test
+    public void idleFramesDoNotWrite() {
+        mAnimator.start();
+        frames(200);
+        assertFalse(mAnimator.isRunning());
+
+        int writes = 0;
+        for(RecordingTarget target : mTargets) {
+            writes += target.getWriteCount();
+        }
+
+        frames(10);
+
+        for(RecordingTarget target : mTargets) {
+            writes -= target.getWriteCount();
+        }
+
+        assertEquals(0, writes);
+    }
+
+    @Test
+    public void unchangedTargetsAreNotWritten() {
+        GroupAnimator fade = Playback.newGroup(mClock);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            fade.withTarget(mTargets[i]).alpha(0.5f, 200, i);
+        }
+
+        // Settle every target at the end state, then move a single target away from it.
+        fade.start();
+        frames(100);
+        mTargets[1].setValue(GroupAnimator.ALPHA, 1f);
+
+        final int[] writes = new int[TARGET_COUNT];
+        for(int i=0; i < TARGET_COUNT; i++) {
+            writes[i] = mTargets[i].getWriteCount();
+        }
+
+        fade.start();
+        frames(100);
+
+        for(int i=0; i < TARGET_COUNT; i++) {
+            final int targetWrites = mTargets[i].getWriteCount() - writes[i];
+            if(i == 1) {
+                assertTrue(targetWrites > 0);
+            } else {
+                assertEquals("Wrote to unchanged target " + i, 0, targetWrites);
+            }
+        }
+
+        assertEquals(0.5f, mTargets[1].getValue(GroupAnimator.ALPHA), 0f);
+    }
+
+    @Test
+    public void bulkAnimationDoesNotAllocatePerSegment() {
+        float[] values = new float[TARGET_COUNT];
+        int[] delays = new int[TARGET_COUNT];
+        int[] durations = new int[TARGET_COUNT];
+        for(int i=0; i < TARGET_COUNT; i++) {
+            values[i] = i;
+            delays[i] = TARGET_COUNT - i;
+            durations[i] = 200;
+        }
+
+        GroupAnimator bulk = Playback.newGroup(mClock);
+        bulk.animate(mTargets, GroupAnimator.SCALE_X, values, delays, durations);
+
+        if(AllocationMeter.isSupported()) {
+            AllocationMeter meter = new AllocationMeter();
+            meter.start();
+            bulk.animate(mTargets, GroupAnimator.SCALE_Y, values, delays, durations);
+            final long allocated = meter.stop();
+
+            assertTrue("Allocated " + allocated + " bytes for " + TARGET_COUNT + " segments",
+                    allocated <= threshold("bulk.maxAllocatedBytesPerSegment") * TARGET_COUNT);
+        }
+
+        assertEquals(TARGET_COUNT * 2, bulk.getStats().getBulkSegmentCount());
+        assertEquals(TARGET_COUNT, bulk.getStats().getViewCount());
+        assertEquals(TARGET_COUNT + 200, bulk.getAnimationLength());
+
+        bulk.start();
+        frames(100);
+
+        assertFalse(bulk.isRunning());
+        for(int i=0; i < TARGET_COUNT; i++) {
+            assertEquals(i, mTargets[i].getValue(GroupAnimator.SCALE_X), 0f);
+            assertEquals(i, mTargets[i].getValue(GroupAnimator.SCALE_Y), 0f);
+        }
+    }
+
+    @Test
+    public void bulkViewAnimationSharesTargets() {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+
+        // Views can't be created without a device, but are only wrapped when registering.
+        View[] views = new View[TARGET_COUNT];
+        float[] values = new float[TARGET_COUNT];
+
+        // Warm up, so class loading isn't measured.
+        Playback.newGroup(mClock).animate(views, GroupAnimator.SCALE_X, values);
+
+        GroupAnimator bulk = Playback.newGroup(mClock);
+        AllocationMeter meter = new AllocationMeter();
+        meter.start();
+        bulk.animate(views, GroupAnimator.SCALE_X, values);
+        final long first = meter.stop();
+
+        assertTrue("Allocated " + first + " bytes for " + TARGET_COUNT + " view segments",
+                first <= threshold("bulk.maxAllocatedBytesPerViewSegment") * TARGET_COUNT);
+
+        // Animating another property of the same views reuses their targets.
+        meter.start();
+        bulk.animate(views, GroupAnimator.SCALE_Y, values);
+        final long second = meter.stop();
+
+        assertTrue("Allocated " + second + " bytes for " + TARGET_COUNT + " view segments",
+                second <= threshold("bulk.maxAllocatedBytesPerSegment") * TARGET_COUNT);
+    }
+
+    @Test
+    public void budgetChecksDoNotWalkTheGroup() {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+
+        float[] values = new float[TARGET_COUNT];
+        GroupAnimator bulk = Playback.newGroup(mClock);
+        bulk.animate(mTargets, GroupAnimator.SCALE_X, values, null, null);
+        bulk.withMemoryBudget(Long.MAX_VALUE, GroupAnimator.BUDGET_FAIL);
+
+        // Checking the budget reads running totals, so costs nothing per segment already held.
+        AllocationMeter meter = new AllocationMeter();
+        meter.start();
+        bulk.animate(mTargets, GroupAnimator.SCALE_Y, values, null, null);
+        final long allocated = meter.stop();
+
+        assertTrue("Allocated " + allocated + " bytes for " + TARGET_COUNT + " budgeted segments",
+                allocated <= threshold("bulk.maxAllocatedBytesPerSegment") * TARGET_COUNT);
+    }
+
+    @Test
+    public void spriteFramesDoNotAllocate() {
+        Assume.assumeTrue(AllocationMeter.isSupported());
+
+        SpriteStore sprites = new SpriteStore(TARGET_COUNT * 10);
+        float[] xs = new float[sprites.getCount()];
+        for(int i=0; i < xs.length; i++) {
+            xs[i] = i;
+        }
+
+        GroupAnimator burst = Playback.newGroup(mClock)
+                .animate(sprites, GroupAnimator.X, xs, null, null)
+                .withRepeat(GroupAnimator.INFINITE, GroupAnimator.REPEAT_REVERSE);
+        burst.start();
+        frames(10);
+
+        final int frameCount = 100;
+        AllocationMeter meter = new AllocationMeter();
+        meter.start();
+        frames(frameCount);
+        final long allocated = meter.stop();
+
+        assertTrue("Allocated " + allocated + " bytes over " + frameCount + " frames",
+                allocated <= threshold("frame.maxAllocatedBytes") * frameCount);
+    }
+}
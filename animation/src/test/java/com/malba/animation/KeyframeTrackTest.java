@@ -0,0 +1,93 @@
+package com.malba.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Behaviour of keyframe tracks, played as single segments.
+ */
+public class KeyframeTrackTest {
+    private static final int TARGET_COUNT = 100;
+
+    @Test
+    public void keyframeTracksPlayAsSingleSegments() {
+        // A 20 step wobble, settling back at 0.
+        final int steps = 20;
+        float[] times = new float[steps + 1];
+        float[] values = new float[steps + 1];
+        for(int i=0; i <= steps; i++) {
+            times[i] = i * 25;
+            values[i] = i == steps ? 0 : (i % 2 == 0 ? 10 : -10);
+        }
+
+        VirtualFrameClock clock = new VirtualFrameClock();
+        RecordingTarget[] targets = Playback.newTargets(TARGET_COUNT);
+        GroupAnimator wobble = Playback.newGroup(clock);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            wobble.withTarget(targets[i]).rotationKeyframes(times, values, i);
+        }
+
+        assertEquals(TARGET_COUNT, wobble.getStats().getSegmentCount());
+        assertEquals(steps * 25 + TARGET_COUNT - 1, wobble.getAnimationLength());
+
+        wobble.start();
+        float maxRotation = 0;
+        while(wobble.isRunning()) {
+            clock.frame(Playback.FRAME_TIME);
+            maxRotation = Math.max(maxRotation, targets[0].getValue(GroupAnimator.ROTATION));
+        }
+
+        assertTrue(maxRotation > 5 && maxRotation <= 10);
+        assertEquals(0f, targets[0].getValue(GroupAnimator.ROTATION), 0f);
+    }
+
+    @Test
+    public void identicalKeyframeTracksAreSharedAndCountedOnce() {
+        float[] times = {0, 100, 200};
+        float[] values = {0, 10, 0};
+
+        GroupAnimator group = Playback.newGroup(new VirtualFrameClock());
+        RecordingTarget[] targets = Playback.newTargets(TARGET_COUNT);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            group.withTarget(targets[i]).rotationKeyframes(times, values, i);
+        }
+
+        // Changing the arrays afterwards must not change the registered tracks.
+        values[1] = 20;
+        group.withTarget(targets[0]).alphaKeyframes(times, values, 0);
+
+        assertEquals(2 * times.length, group.getStats().getKeyframeCount());
+    }
+
+    @Test
+    public void keyframeTracksWriteEachPropertyOnce() {
+        VirtualFrameClock clock = new VirtualFrameClock();
+        RecordingTarget[] targets = Playback.newTargets(1);
+        GroupAnimator group = Playback.newGroup(clock);
+        group.withTarget(targets[0]).translationXKeyframes(new float[] {0, 100, 100, 200},
+                new float[] {0, 50, 80, 0}, 0);
+
+        group.start();
+        assertEquals(1, Playback.playToEnd(clock, targets, group));
+        assertEquals(0f, targets[0].getValue(GroupAnimator.TRANSLATION_X), 0f);
+    }
+
+    @Test
+    public void cursorMovesInEitherDirection() {
+        KeyframeTrack track = new KeyframeTrack(new float[] {0, 100, 100, 200},
+                new float[] {0, 50, 80, 0});
+
+        int cursor = track.seek(0, 150);
+        assertEquals(2, cursor);
+        assertEquals(40f, track.getValue(cursor, 150), 0.001f);
+
+        cursor = track.seek(cursor, 50);
+        assertEquals(0, cursor);
+        assertEquals(25f, track.getValue(cursor, 50), 0.001f);
+
+        // Equal times step straight to the later keyframe.
+        cursor = track.seek(cursor, 100);
+        assertEquals(80f, track.getValue(cursor, 100), 0f);
+    }
+}
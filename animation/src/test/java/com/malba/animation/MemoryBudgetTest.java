@@ -0,0 +1,154 @@
+package com.malba.animation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stats snapshots, and groups held to a memory budget.
+ */
+public class MemoryBudgetTest {
+    private static final int TARGET_COUNT = 10;
+
+    private VirtualFrameClock mClock;
+    private RecordingTarget[] mTargets;
+    private GroupAnimator mGroup;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualFrameClock();
+        mTargets = Playback.newTargets(TARGET_COUNT);
+        mGroup = Playback.newGroup(mClock);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            mGroup.withTarget(mTargets[i]).translationX(100, 300, 0);
+        }
+    }
+
+    /**
+     * Adds a segment for a target the group already animates.
+     */
+    private void addSegment() {
+        mGroup.withTarget(mTargets[0]).alpha(0.5f, 300, 0);
+    }
+
+    @Test
+    public void statsDescribeWhatTheGroupHolds() {
+        AnimationStats stats = mGroup.getStats();
+        assertEquals(1, stats.getGroupCount());
+        assertEquals(TARGET_COUNT, stats.getViewCount());
+        assertEquals(TARGET_COUNT, stats.getSegmentCount());
+        assertEquals(0, stats.getTimelineSegmentCount());
+        assertEquals(stats.getRetainedBytes(), mGroup.estimateRetainedBytes());
+
+        // Starting builds the timeline, which is counted as well.
+        final long bytes = stats.getRetainedBytes();
+        mGroup.start();
+        Playback.frames(mClock, 2);
+        stats = mGroup.getStats();
+        assertEquals(TARGET_COUNT, stats.getTimelineSegmentCount());
+        assertEquals(1, stats.getActiveAnimatorCount());
+        assertEquals(TARGET_COUNT, stats.getActiveSegmentCount());
+        assertTrue(stats.getRetainedBytes() > bytes);
+    }
+
+    @Test
+    public void failingBudgetLeavesGroupUnchanged() {
+        final long bytes = mGroup.estimateRetainedBytes();
+        mGroup.withMemoryBudget(bytes, GroupAnimator.BUDGET_FAIL);
+
+        try {
+            addSegment();
+            fail("Expected the segment to exceed the budget");
+        } catch (IllegalStateException expected) {
+        }
+
+        assertEquals(TARGET_COUNT, mGroup.getStats().getSegmentCount());
+        assertEquals(bytes, mGroup.estimateRetainedBytes());
+
+        // Once the budget is raised, the group grows as normal.
+        mGroup.withMemoryBudget(bytes * 2, GroupAnimator.BUDGET_FAIL);
+        addSegment();
+        assertEquals(TARGET_COUNT + 1, mGroup.getStats().getSegmentCount());
+    }
+
+    @Test
+    public void budgetTooSmallForGroupIsNotApplied() {
+        final long bytes = mGroup.estimateRetainedBytes();
+
+        try {
+            mGroup.withMemoryBudget(bytes - 1, GroupAnimator.BUDGET_FAIL);
+            fail("Expected the group to exceed the budget");
+        } catch (IllegalStateException expected) {
+        }
+
+        // The group keeps growing without a budget.
+        addSegment();
+        assertEquals(TARGET_COUNT + 1, mGroup.getStats().getSegmentCount());
+    }
+
+    @Test
+    public void compactingBudgetReleasesOutOfDateTimelines() {
+        mGroup.start();
+        Playback.playToEnd(mClock, mTargets, mGroup);
+
+        final long bytes = mGroup.estimateRetainedBytes();
+        mGroup.withMemoryBudget(bytes, GroupAnimator.BUDGET_COMPACT);
+
+        // The finished timeline is out of date once the group changes, so is released to make room.
+        addSegment();
+        AnimationStats stats = mGroup.getStats();
+        assertEquals(TARGET_COUNT + 1, stats.getSegmentCount());
+        assertEquals(0, stats.getTimelineSegmentCount());
+        assertTrue(stats.getRetainedBytes() <= bytes);
+
+        // Only the value each track started from is kept, so the group can still be resumed.
+        assertEquals(TARGET_COUNT, stats.getStartValueCount());
+
+        // Resuming backwards rebuilds the timeline at the end, including the new segment, and
+        // plays back to the values the group first started from. The rebuilt timeline is larger
+        // than the one released, so the budget is lifted first.
+        mGroup.withMemoryBudget(0, GroupAnimator.BUDGET_COMPACT);
+        mGroup.setPlaybackRate(-1);
+        mGroup.resume();
+        assertTrue(mGroup.isRunning());
+        stats = mGroup.getStats();
+        assertEquals(TARGET_COUNT + 1, stats.getTimelineSegmentCount());
+        assertEquals(0, stats.getStartValueCount());
+        assertEquals(0.5f, mTargets[0].getValue(GroupAnimator.ALPHA), 0f);
+        assertEquals(100f, mTargets[0].getValue(GroupAnimator.TRANSLATION_X), 0f);
+
+        Playback.playToEnd(mClock, mTargets, mGroup);
+        assertEquals(0f, mTargets[0].getValue(GroupAnimator.ALPHA), 0f);
+        for(int i=0; i < TARGET_COUNT; i++) {
+            assertEquals(0f, mTargets[i].getValue(GroupAnimator.TRANSLATION_X), 0f);
+        }
+    }
+
+    @Test
+    public void compactedGroupsResumeWithoutJumping() {
+        mGroup.start();
+        Playback.frames(mClock, 8);
+        mGroup.cancel();
+        final float cancelled = mTargets[1].getValue(GroupAnimator.TRANSLATION_X);
+        assertTrue(cancelled > 0 && cancelled < 100);
+
+        // The cancelled timeline is released once the group changes.
+        mGroup.withMemoryBudget(mGroup.estimateRetainedBytes(), GroupAnimator.BUDGET_COMPACT);
+        addSegment();
+        assertEquals(0, mGroup.getStats().getTimelineSegmentCount());
+
+        // The rebuilt timeline carries on from where the group was cancelled.
+        mGroup.withMemoryBudget(0, GroupAnimator.BUDGET_COMPACT);
+        mGroup.resume();
+        assertEquals(cancelled, mTargets[1].getValue(GroupAnimator.TRANSLATION_X), 0f);
+
+        Playback.frames(mClock, 2);
+        final float resumed = mTargets[1].getValue(GroupAnimator.TRANSLATION_X);
+        assertTrue(resumed > cancelled && resumed - cancelled < 10);
+
+        Playback.playToEnd(mClock, mTargets, mGroup);
+        assertEquals(100f, mTargets[1].getValue(GroupAnimator.TRANSLATION_X), 0f);
+        assertEquals(0.5f, mTargets[0].getValue(GroupAnimator.ALPHA), 0f);
+    }
+}
@@ -0,0 +1,71 @@
+package com.malba.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sampling of flattened paths, and playback of path segments. Paths can't be measured without a
+ * device, so tables are built from their samples.
+ */
+public class PathTableTest {
+    // An L shape, from (0, 0) to (100, 0) to (100, 100).
+    private static final float[] XS = {0, 50, 100, 100, 100};
+    private static final float[] YS = {0, 0, 0, 50, 100};
+
+    @Test
+    public void samplesAreInterpolatedByFraction() {
+        PathTable table = new PathTable(XS.clone(), YS.clone());
+
+        assertEquals(5, table.getSampleCount());
+        assertEquals(0f, table.getX(0), 0f);
+        assertEquals(25f, table.getX(0.125f), 0.001f);
+        assertEquals(100f, table.getX(0.5f), 0f);
+        assertEquals(75f, table.getY(0.875f), 0.001f);
+        assertEquals(100f, table.getY(1), 0f);
+
+        // Fractions outside the path are clamped to its ends.
+        assertEquals(0f, table.getX(-1), 0f);
+        assertEquals(100f, table.getY(2), 0f);
+    }
+
+    @Test
+    public void reversedTablesRunBackwardsAndAreShared() {
+        PathTable table = new PathTable(XS.clone(), YS.clone());
+        PathTable reversed = table.reversed();
+
+        assertEquals(100f, reversed.getX(0), 0f);
+        assertEquals(100f, reversed.getY(0), 0f);
+        assertEquals(0f, reversed.getX(1), 0f);
+        assertEquals(75f, reversed.getX(0.625f), 0.001f);
+
+        assertSame(reversed, table.reversed());
+        assertSame(table, reversed.reversed());
+    }
+
+    @Test
+    public void pathSegmentsFollowBothAxes() {
+        PathTable table = new PathTable(XS.clone(), YS.clone());
+        RecordingTarget target = new RecordingTarget();
+
+        Timeline timeline = new Timeline(2, 0);
+        timeline.setPathSegment(0, target, GroupAnimator.TRANSLATION_X, Timeline.KIND_PATH_X, table, 400, 0);
+        timeline.setPathSegment(1, target, GroupAnimator.TRANSLATION_Y, Timeline.KIND_PATH_Y, table, 400, 0);
+        timeline.buildIndex();
+        timeline.diff();
+        timeline.seek(0, false);
+
+        float time = 0;
+        while(time < 400) {
+            timeline.step(time, time + 16);
+            time += 16;
+
+            final float fraction = Timeline.interpolate(Math.min(1, time / 400));
+            assertEquals(table.getX(fraction), target.getValue(GroupAnimator.TRANSLATION_X), 0.001f);
+            assertEquals(table.getY(fraction), target.getValue(GroupAnimator.TRANSLATION_Y), 0.001f);
+        }
+
+        assertEquals(100f, target.getValue(GroupAnimator.TRANSLATION_X), 0f);
+        assertEquals(100f, target.getValue(GroupAnimator.TRANSLATION_Y), 0f);
+    }
+}
@@ -0,0 +1,82 @@
+package com.malba.animation;
+
+/**
+ * Helpers for playing groups frame by frame from a virtual clock, against in memory targets.
+ */
+final class Playback {
+    // The time between frames, in milliseconds.
+    static final long FRAME_TIME = 16;
+
+    private Playback() {
+    }
+
+    /**
+     * @param clock The clock to play the group from.
+     * @return A group played from the clock, ignoring system state.
+     */
+    static GroupAnimator newGroup(VirtualFrameClock clock) {
+        return new GroupAnimator(clock).withPlaybackPolicy(new PlaybackPolicy());
+    }
+
+    /**
+     * @param count The number of targets to create.
+     * @return New in memory targets.
+     */
+    static RecordingTarget[] newTargets(int count) {
+        RecordingTarget[] targets = new RecordingTarget[count];
+        for(int i=0; i < count; i++) {
+            targets[i] = new RecordingTarget();
+        }
+
+        return targets;
+    }
+
+    /**
+     * Delivers a number of frames.
+     * @param clock The clock to deliver frames from.
+     * @param count The number of frames.
+     */
+    static void frames(VirtualFrameClock clock, int count) {
+        for(int i=0; i < count; i++) {
+            clock.frame(FRAME_TIME);
+        }
+    }
+
+    /**
+     * Delivers frames until none of the groups are running.
+     * @param clock The clock the groups are played from.
+     * @param targets The targets the groups animate.
+     * @param groups The groups being played.
+     * @return The most writes made to a single property of a single target, in any one frame.
+     */
+    static int playToEnd(VirtualFrameClock clock, RecordingTarget[] targets, GroupAnimator... groups) {
+        int maxWrites = 0;
+        while(isAnyRunning(groups)) {
+            for(RecordingTarget target : targets) {
+                target.resetWrites();
+            }
+
+            clock.frame(FRAME_TIME);
+
+            for(RecordingTarget target : targets) {
+                maxWrites = Math.max(maxWrites, target.getMaxPropertyWrites());
+            }
+        }
+
+        return maxWrites;
+    }
+
+    /**
+     * @param groups The groups to check.
+     * @return Whether any of the groups are running.
+     */
+    private static boolean isAnyRunning(GroupAnimator[] groups) {
+        for(GroupAnimator group : groups) {
+            if(group.isRunning()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,171 @@
+package com.malba.animation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Behaviour of pausing, resuming, reversing and repeating playback.
+ */
+public class PlaybackControlTest {
+    private VirtualFrameClock mClock;
+    private RecordingTarget[] mTargets;
+    private GroupAnimator mGroup;
+
+    // The number of times the cue in the middle of the group has run.
+    private int mCueRuns;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualFrameClock();
+        mTargets = Playback.newTargets(1);
+        mGroup = Playback.newGroup(mClock);
+        mGroup.withTarget(mTargets[0]).translationX(100, 300, 0);
+        mGroup.addCue(150, new Runnable() {
+            @Override
+            public void run() {
+                mCueRuns++;
+            }
+        });
+    }
+
+    /**
+     * @return The value of the animated property.
+     */
+    private float getValue() {
+        return mTargets[0].getValue(GroupAnimator.TRANSLATION_X);
+    }
+
+    /**
+     * Plays the group until it finishes.
+     */
+    private void playToEnd() {
+        Playback.playToEnd(mClock, mTargets, mGroup);
+    }
+
+    @Test
+    public void pauseHoldsValuesUntilResumed() {
+        mGroup.start();
+        Playback.frames(mClock, 6);
+
+        mGroup.pause();
+        assertTrue(mGroup.isPaused());
+        assertFalse(mGroup.isRunning());
+
+        final float paused = getValue();
+        final int writes = mTargets[0].getWriteCount();
+        Playback.frames(mClock, 10);
+        assertEquals(paused, getValue(), 0f);
+        assertEquals(writes, mTargets[0].getWriteCount());
+
+        // Playback continues from where it was paused, without jumping over the paused time.
+        mGroup.resume();
+        assertFalse(mGroup.isPaused());
+        mClock.frame(Playback.FRAME_TIME);
+        assertEquals(paused, getValue(), 0f);
+
+        playToEnd();
+        assertEquals(100f, getValue(), 0f);
+        assertEquals(1, mCueRuns);
+    }
+
+    @Test
+    public void negativeRatePlaysBackFromCurrentPosition() {
+        mGroup.start();
+        Playback.frames(mClock, 6);
+        final float turned = getValue();
+
+        mGroup.setPlaybackRate(-1);
+        mClock.frame(Playback.FRAME_TIME);
+        assertTrue(getValue() < turned);
+
+        playToEnd();
+        assertEquals(0f, getValue(), 0f);
+        assertEquals(0, mCueRuns);
+    }
+
+    @Test
+    public void finishedGroupResumesBackwards() {
+        mGroup.start();
+        playToEnd();
+        assertEquals(100f, getValue(), 0f);
+
+        mGroup.setPlaybackRate(-1);
+        mGroup.resume();
+        assertTrue(mGroup.isRunning());
+
+        playToEnd();
+        assertEquals(0f, getValue(), 0f);
+        assertEquals(2, mCueRuns);
+    }
+
+    @Test
+    public void restartingRepeatsEndAtTheEnd() {
+        mGroup.withRepeat(2, GroupAnimator.REPEAT_RESTART);
+        mGroup.start();
+
+        int restarts = 0;
+        float previous = getValue();
+        while(mGroup.isRunning()) {
+            mClock.frame(Playback.FRAME_TIME);
+            if(getValue() < previous) {
+                restarts++;
+            }
+            previous = getValue();
+        }
+
+        assertEquals(2, restarts);
+        assertEquals(100f, getValue(), 0f);
+        assertEquals(3, mCueRuns);
+    }
+
+    @Test
+    public void reversingRepeatsEndOnTheLastCycle() {
+        mGroup.withRepeat(1, GroupAnimator.REPEAT_REVERSE);
+        mGroup.start();
+        playToEnd();
+
+        // An odd cycle plays backwards, so the group ends where it started.
+        assertEquals(0f, getValue(), 0f);
+        assertEquals(2, mCueRuns);
+
+        mGroup.withRepeat(2, GroupAnimator.REPEAT_REVERSE);
+        mGroup.start();
+        playToEnd();
+        assertEquals(100f, getValue(), 0f);
+    }
+
+    @Test
+    public void longFramesCrossSeveralCycles() {
+        mGroup.withRepeat(3, GroupAnimator.REPEAT_RESTART);
+        mGroup.start();
+
+        // A single frame covering every cycle still enters each one, running each cue once.
+        mClock.frame(0);
+        mClock.frame(2000);
+
+        assertFalse(mGroup.isRunning());
+        assertEquals(100f, getValue(), 0f);
+        assertEquals(4, mCueRuns);
+    }
+
+    @Test
+    public void negativeRatePlaysRepeatsFromTheLastCycle() {
+        mGroup.withRepeat(1, GroupAnimator.REPEAT_RESTART);
+        mGroup.setPlaybackRate(-1);
+        mGroup.start(1);
+        assertEquals(100f, getValue(), 0f);
+
+        mClock.frame(0);
+        mClock.frame(450);
+
+        // Half way back through the first cycle.
+        assertTrue(mGroup.isRunning());
+        assertEquals(100 * Timeline.interpolate(0.5f), getValue(), 0.001f);
+        assertEquals(2, mCueRuns);
+
+        playToEnd();
+        assertEquals(0f, getValue(), 0f);
+    }
+}
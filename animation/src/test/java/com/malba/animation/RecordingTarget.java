@@ -0,0 +1,79 @@
+package com.malba.animation;
+
+/**
+ * AnimationTarget which stores property values in memory, and counts the writes made to it.
+ */
+class RecordingTarget implements AnimationTarget {
+    // Property constants are single bits, so the slot of a property is its bit index.
+    private final float[] mValues = new float[Integer.SIZE];
+    private final int[] mColors = new int[Integer.SIZE];
+    private final int[] mWrites = new int[Integer.SIZE];
+    private int mWriteCount;
+    private PlaybackPolicy mPlaybackPolicy;
+
+    @Override
+    public float getValue(int property) {
+        return mValues[Integer.numberOfTrailingZeros(property)];
+    }
+
+    @Override
+    public void setValue(int property, float value) {
+        final int slot = Integer.numberOfTrailingZeros(property);
+        mValues[slot] = value;
+        mWrites[slot]++;
+        mWriteCount++;
+    }
+
+    @Override
+    public int getColor(int property) {
+        return mColors[Integer.numberOfTrailingZeros(property)];
+    }
+
+    @Override
+    public void setColor(int property, int color) {
+        final int slot = Integer.numberOfTrailingZeros(property);
+        mColors[slot] = color;
+        mWrites[slot]++;
+        mWriteCount++;
+    }
+
+    @Override
+    public PlaybackPolicy getPlaybackPolicy() {
+        return mPlaybackPolicy;
+    }
+
+    /**
+     * @param policy The policy to report to groups playing this target.
+     */
+    void setPlaybackPolicy(PlaybackPolicy policy) {
+        mPlaybackPolicy = policy;
+    }
+
+    /**
+     * @return The total number of writes made.
+     */
+    int getWriteCount() {
+        return mWriteCount;
+    }
+
+    /**
+     * @return The highest number of writes made to a single property since the last reset.
+     */
+    int getMaxPropertyWrites() {
+        int max = 0;
+        for(int writes : mWrites) {
+            max = Math.max(max, writes);
+        }
+
+        return max;
+    }
+
+    /**
+     * Resets the per property write counts.
+     */
+    void resetWrites() {
+        for(int i=0; i < mWrites.length; i++) {
+            mWrites[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.malba.animation;
+
+import android.animation.TimeInterpolator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Behaviour of group time scales and time warps.
+ */
+public class RetimingTest {
+    @Test
+    public void retimingAppliesAsGroupPlays() {
+        VirtualFrameClock clock = new VirtualFrameClock();
+        RecordingTarget target = new RecordingTarget();
+        GroupAnimator group = Playback.newGroup(clock);
+        group.withTarget(target)
+                .withTiming(300, 0)
+                .translationX(100)
+                .withDurationAfter(300)
+                .translationX(0);
+
+        group.start();
+        Playback.frames(clock, 100);
+
+        group.withTimeScale(2).withTimeWarp(new TimeInterpolator() {
+            @Override
+            public float getInterpolation(float input) {
+                return input * input;
+            }
+        });
+
+        group.start();
+        final int length = group.getAnimationLength();
+        int frameCount = 0;
+        while(group.isRunning()) {
+            clock.frame(Playback.FRAME_TIME);
+            frameCount++;
+
+            // The timeline is evaluated at the warped group clock.
+            final float percent = group.getAnimationPercent();
+            final float time = percent * percent * length;
+            if(time < 300) {
+                final float expected = 100 * Timeline.interpolate(time / 300);
+                assertEquals(expected, target.getValue(GroupAnimator.TRANSLATION_X), 0.01f);
+            }
+        }
+
+        // Twice the frames needed at the original time scale.
+        assertEquals(1 + 2 * length / Playback.FRAME_TIME, frameCount, 1);
+        assertEquals(0f, target.getValue(GroupAnimator.TRANSLATION_X), 0f);
+    }
+}
@@ -0,0 +1,56 @@
+package com.malba.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Behaviour of sprites animated through a SpriteStore, without any views.
+ */
+public class SpriteStoreTest {
+    @Test
+    public void spriteStoreIsAnimatedWithoutViews() {
+        final int count = 5000;
+        SpriteStore sprites = new SpriteStore(count);
+        float[] xs = new float[count];
+        int[] delays = new int[count];
+        for(int i=0; i < count; i++) {
+            xs[i] = i;
+            delays[i] = i % 100;
+        }
+
+        VirtualFrameClock clock = new VirtualFrameClock();
+        GroupAnimator burst = Playback.newGroup(clock)
+                .withTiming(300, 0)
+                .animate(sprites, GroupAnimator.X, xs, delays, null)
+                .withSprite(sprites, 1)
+                .alpha(0, 200, 200);
+
+        burst.start();
+        Playback.frames(clock, 100);
+
+        assertFalse(burst.isRunning());
+        assertEquals(count - 1, sprites.getValue(count - 1, GroupAnimator.X), 0f);
+        assertEquals(0f, sprites.getValue(1, GroupAnimator.ALPHA), 0f);
+        assertEquals(1f, sprites.getValue(2, GroupAnimator.ALPHA), 0f);
+    }
+
+    @Test
+    public void spriteOnlyGroupsUseTheStorePolicy() {
+        SpriteStore sprites = new SpriteStore(10);
+        sprites.setPlaybackPolicy(new PlaybackPolicy() {
+            @Override
+            public float getDurationScale() {
+                // Animations turned off.
+                return 0;
+            }
+        });
+
+        VirtualFrameClock clock = new VirtualFrameClock();
+        GroupAnimator fade = new GroupAnimator(clock).withSprite(sprites, 3).alpha(0, 200, 0);
+        fade.start();
+
+        assertFalse(fade.isRunning());
+        assertEquals(0f, sprites.getValue(3, GroupAnimator.ALPHA), 0f);
+    }
+}
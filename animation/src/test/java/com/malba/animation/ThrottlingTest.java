@@ -0,0 +1,80 @@
+package com.malba.animation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throttling of low priority groups, following the playback policy while they play.
+ */
+public class ThrottlingTest {
+    private VirtualFrameClock mClock;
+    private RecordingTarget mTarget;
+    private PlaybackPolicy mPolicy;
+    private GroupAnimator mLoop;
+
+    @Before
+    public void setUp() {
+        mClock = new VirtualFrameClock();
+        mTarget = new RecordingTarget();
+        mPolicy = new PlaybackPolicy();
+        mLoop = new GroupAnimator(mClock)
+                .withPlaybackPolicy(mPolicy)
+                .withPriority(PlaybackPolicy.PRIORITY_LOW)
+                .withRepeat(GroupAnimator.INFINITE, GroupAnimator.REPEAT_REVERSE);
+        mLoop.withTarget(mTarget).translationX(100, 300, 0);
+    }
+
+    /**
+     * @param count The number of frames to deliver.
+     * @return The number of frames which updated the target.
+     */
+    private int updatesOver(int count) {
+        int updates = 0;
+        for(int i=0; i < count; i++) {
+            final int before = mTarget.getWriteCount();
+            mClock.frame(Playback.FRAME_TIME);
+            if(mTarget.getWriteCount() != before) {
+                updates++;
+            }
+        }
+
+        return updates;
+    }
+
+    /**
+     * Delivers enough frames for the policy to be read again.
+     */
+    private void waitForPolicyRead() {
+        Playback.frames(mClock, (int) (TimelinePlayer.POLICY_REFRESH_INTERVAL / Playback.FRAME_TIME) + 1);
+    }
+
+    @Test
+    public void runningLoopFollowsThermalState() {
+        mLoop.start();
+        Playback.frames(mClock, 2);
+        assertEquals(30, updatesOver(30));
+
+        mPolicy.setThermalThrottled(true);
+        waitForPolicyRead();
+
+        // Reduced to 30 frames per second, so every other frame is skipped.
+        assertEquals(15, updatesOver(30));
+
+        mPolicy.setThermalThrottled(false);
+        waitForPolicyRead();
+        assertEquals(30, updatesOver(30));
+        assertTrue(mLoop.isRunning());
+    }
+
+    @Test
+    public void defaultPriorityIsNeverThrottled() {
+        mLoop.withPriority(PlaybackPolicy.PRIORITY_DEFAULT);
+        mPolicy.setThermalThrottled(true);
+
+        mLoop.start();
+        Playback.frames(mClock, 2);
+        assertEquals(30, updatesOver(30));
+    }
+}
@@ -0,0 +1,51 @@
+package com.malba.animation;
+
+/**
+ * FrameClock driven by hand, so playback can be stepped frame by frame without a display.
+ */
+class VirtualFrameClock implements FrameClock {
+    private Callback mCallback;
+    private boolean mStarted;
+    private boolean mFirstFrame;
+    private int mStartCount;
+
+    @Override
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    public void start() {
+        mStarted = true;
+        mFirstFrame = true;
+        mStartCount++;
+    }
+
+    @Override
+    public void cancel() {
+        mStarted = false;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return mStarted;
+    }
+
+    /**
+     * Delivers a single frame, if the clock is started.
+     * @param frameTime The time since the previous frame in milliseconds.
+     */
+    void frame(long frameTime) {
+        if(mStarted) {
+            mCallback.onFrame(mFirstFrame ? 0 : frameTime);
+            mFirstFrame = false;
+        }
+    }
+
+    /**
+     * @return The number of times the clock has been started.
+     */
+    int getStartCount() {
+        return mStartCount;
+    }
+}
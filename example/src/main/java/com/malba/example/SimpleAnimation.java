@@ -10,7 +10,6 @@ public class SimpleAnimation extends AppCompatActivity {
     private View mButton;
     private int mAnimationState;
     private GroupAnimator mAnimator;
-    private GroupAnimator mReverseAnimator;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -25,7 +24,6 @@ public class SimpleAnimation extends AppCompatActivity {
         });
 
         mAnimator = createAnimator(mButton);
-        mReverseAnimator = mAnimator.cloneReverse();
     }
 
     private GroupAnimator createAnimator(View view) {
@@ -43,13 +41,13 @@ public class SimpleAnimation extends AppCompatActivity {
 
     private void animateView(View view) {
         if(mAnimationState == 0) {
-            mReverseAnimator.cancel();
-            mAnimator.start(1 - mReverseAnimator.getAnimationPercent());
+            mAnimator.setPlaybackRate(1);
             mAnimationState = 1;
         } else {
-            mAnimator.cancel();
-            mReverseAnimator.start(1 - mAnimator.getAnimationPercent());
+            mAnimator.setPlaybackRate(-1);
             mAnimationState = 0;
         }
+
+        mAnimator.resume();
     }
 }